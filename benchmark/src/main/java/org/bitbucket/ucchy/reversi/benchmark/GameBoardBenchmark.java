@@ -0,0 +1,115 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * GameBoard の基本操作のベンチマーク。
+ * 1回の操作で、コーパスの全ての局面（と、その全ての合法手）を処理する。
+ * @author ucchy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBoardBenchmark {
+
+    private GameBoard[] boards;
+    private Piece[] pieces;
+
+    // 局面ごとの合法手の座標 { x, y }
+    private int[][][] moves;
+
+    /**
+     * コーパスを準備する
+     */
+    @Setup
+    public void setup() {
+        PositionCorpus corpus = PositionCorpus.create();
+        boards = new GameBoard[corpus.size()];
+        pieces = new Piece[corpus.size()];
+        moves = new int[corpus.size()][][];
+        for ( int i=0; i<corpus.size(); i++ ) {
+            boards[i] = corpus.getBoard(i);
+            pieces[i] = corpus.getPiece(i);
+            long legal = boards[i].legalMoves(pieces[i]);
+            moves[i] = new int[Long.bitCount(legal)][];
+            for ( int j=0; j<moves[i].length; j++ ) {
+                int square = Long.numberOfTrailingZeros(legal);
+                moves[i][j] = new int[] {square % 8, square / 8};
+                legal &= legal - 1;
+            }
+        }
+    }
+
+    @Benchmark
+    public void findPath(Blackhole blackhole) {
+        for ( int i=0; i<boards.length; i++ ) {
+            for ( int[] move : moves[i] ) {
+                blackhole.consume(boards[i].findPath(move[0], move[1], pieces[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public void canPut(Blackhole blackhole) {
+        for ( int i=0; i<boards.length; i++ ) {
+            blackhole.consume(boards[i].canPut(pieces[i]));
+            blackhole.consume(boards[i].canPut(pieces[i].getReverse()));
+        }
+    }
+
+    /**
+     * 盤面のコピーを含む。putAt だけの時間は、clone の結果を差し引いて求める。
+     */
+    @Benchmark
+    public void putAt(Blackhole blackhole) {
+        for ( int i=0; i<boards.length; i++ ) {
+            for ( int[] move : moves[i] ) {
+                GameBoard board = boards[i].clone();
+                blackhole.consume(board.putAt(move[0], move[1], pieces[i]));
+            }
+        }
+    }
+
+    /**
+     * putAt と同じ回数だけ盤面をコピーする
+     */
+    @Benchmark
+    public void clone(Blackhole blackhole) {
+        for ( int i=0; i<boards.length; i++ ) {
+            for ( int j=0; j<moves[i].length; j++ ) {
+                blackhole.consume(boards[i].clone());
+            }
+        }
+    }
+
+    @Benchmark
+    public void getCountOf(Blackhole blackhole) {
+        for ( int i=0; i<boards.length; i++ ) {
+            blackhole.consume(boards[i].getCountOf(Piece.BLACK));
+            blackhole.consume(boards[i].getCountOf(Piece.WHITE));
+            blackhole.consume(boards[i].getCountOf(Piece.EMPTY));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.benchmark;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * ベンチマークで使う局面の集まり。<br/>
+ * 初期局面からランダムに打ち進めて、指定した空きマス数の局面を集める。
+ * 乱数の種を固定し、k番目の合法手を「ビット位置の小さい順で k 番目」と決めているので、
+ * 合法手の集合が同じ盤面実装であれば、常に同じ局面が得られる。
+ * @author ucchy
+ */
+public class PositionCorpus {
+
+    /** 乱数の種 */
+    public static final long SEED = 0x52657665727369L;
+
+    /** 局面を集める空きマス数 */
+    public static final int[] STAGES = { 52, 44, 36, 28, 20, 14 };
+
+    /** 空きマス数ごとの局面数 */
+    public static final int POSITIONS_PER_STAGE = 16;
+
+    private GameBoard[] boards;
+    private Piece[] pieces;
+
+    /**
+     * コンストラクタ
+     * @param boards 盤面
+     * @param pieces 手番
+     */
+    private PositionCorpus(GameBoard[] boards, Piece[] pieces) {
+        this.boards = boards;
+        this.pieces = pieces;
+    }
+
+    /**
+     * 全ての空きマス数の局面を集めたコーパスを作成する
+     * @return コーパス
+     */
+    public static PositionCorpus create() {
+        return create(STAGES);
+    }
+
+    /**
+     * 指定した空きマス数の局面を集めたコーパスを作成する
+     * @param stages 空きマス数
+     * @return コーパス
+     */
+    public static PositionCorpus create(int... stages) {
+
+        ArrayList<GameBoard> boards = new ArrayList<GameBoard>();
+        ArrayList<Piece> pieces = new ArrayList<Piece>();
+
+        for ( int empties : stages ) {
+            Random random = new Random(SEED + empties);
+            int found = 0;
+            while ( found < POSITIONS_PER_STAGE ) {
+                GameBoard board = new GameBoard();
+                Piece piece = playRandom(board, Piece.BLACK, empties, random);
+                if ( piece != null ) {
+                    boards.add(board);
+                    pieces.add(piece);
+                    found++;
+                }
+            }
+        }
+
+        return new PositionCorpus(boards.toArray(new GameBoard[boards.size()]),
+                pieces.toArray(new Piece[pieces.size()]));
+    }
+
+    /**
+     * 空きマス数が指定した数になるまで、ランダムに打ち進める
+     * @param board 盤面
+     * @param piece 最初の手番
+     * @param empties 空きマス数
+     * @param random 乱数
+     * @return 打ち進めた局面の手番、指定した空きマス数で置ける手が無い場合はnull
+     */
+    private static Piece playRandom(GameBoard board, Piece piece, int empties, Random random) {
+
+        while ( board.getEmptyCount() > empties ) {
+            long moves = board.legalMoves(piece);
+            if ( moves == 0 ) {
+                piece = piece.getReverse();
+                if ( board.legalMoves(piece) == 0 ) {
+                    return null;
+                }
+                continue;
+            }
+            board.applyMove(pickMove(moves, random), piece);
+            piece = piece.getReverse();
+        }
+
+        return (board.legalMoves(piece) != 0) ? piece : null;
+    }
+
+    /**
+     * 合法手の中から、ランダムに1つ選ぶ
+     * @param moves 合法手のマスク
+     * @param random 乱数
+     * @return 選んだマス目のビット位置
+     */
+    public static int pickMove(long moves, Random random) {
+        int skip = random.nextInt(Long.bitCount(moves));
+        for ( int i=0; i<skip; i++ ) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+
+    /**
+     * 局面の数を返す
+     * @return 局面の数
+     */
+    public int size() {
+        return boards.length;
+    }
+
+    /**
+     * 盤面を返す。変更する場合は、呼び出し側でコピーすること。
+     * @param index 局面の番号
+     * @return 盤面
+     */
+    public GameBoard getBoard(int index) {
+        return boards[index];
+    }
+
+    /**
+     * 手番を返す
+     * @param index 局面の番号
+     * @return 手番
+     */
+    public Piece getPiece(int index) {
+        return pieces[index];
+    }
+}
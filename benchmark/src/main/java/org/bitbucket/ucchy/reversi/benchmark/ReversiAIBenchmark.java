@@ -0,0 +1,87 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
+import org.bitbucket.ucchy.reversi.ai.ReversiAI;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ゲーム内と同じ AIProfile で思考する、ReversiAI#getNext のベンチマーク。
+ * 1回の操作で、指定した空きマス数の局面を1つずつ順番に処理する。<br/>
+ * プロファイルの書式は AIProfile#parse を参照。easy、normal はランクの初期値のまま測定し、
+ * hard は、結果が実行環境に左右されないように、時間制限なし・固定の探索深度で測定する。
+ * 置換表を使うプロファイルは、前の局面の置換表の内容を持ち越さないように、毎回新しく生成する。
+ * @author ucchy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReversiAIBenchmark {
+
+    @Param({ "easy", "normal", "hard:depth=6:timeMillis=0" })
+    public String profileSpec;
+
+    @Param({ "44", "28", "14" })
+    public int empties;
+
+    private GameBoard[] boards;
+    private Piece[] pieces;
+    private int index;
+    private AIProfile profile;
+    private ReversiAI ai;
+
+    /**
+     * コーパスを準備する
+     */
+    @Setup
+    public void setup() {
+        PositionCorpus corpus = PositionCorpus.create(empties);
+        boards = new GameBoard[corpus.size()];
+        pieces = new Piece[corpus.size()];
+        for ( int i=0; i<corpus.size(); i++ ) {
+            boards[i] = corpus.getBoard(i);
+            pieces[i] = corpus.getPiece(i);
+        }
+        profile = AIProfile.parse(profileSpec);
+        ai = profile.createAI(null, null);
+    }
+
+    /**
+     * 置換表を使うプロファイルは、呼び出しごとに新しく生成する
+     */
+    @Setup(Level.Invocation)
+    public void prepareInvocation() {
+        if ( profile.getTableSize() > 0 ) {
+            ai = profile.createAI(null, null);
+        }
+    }
+
+    @Benchmark
+    public int[] getNext() {
+        int i = index;
+        index = (index + 1) % boards.length;
+        return ai.getNext(boards[i], pieces[i]);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
+import org.bitbucket.ucchy.reversi.ai.ReversiAI;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 同じ AIProfile のAI同士の自己対戦を、終局まで行うベンチマーク（1秒あたりの対局数）。<br/>
+ * 毎回同じ対局にならないように、コーパスの序盤の局面から順番に開始する。
+ * プロファイルの書式は AIProfile#parse を参照。hard は、1局が長くなりすぎないように、
+ * 時間制限なし・浅い探索深度・少ない読み切りの空きマス数で測定する。
+ * @author ucchy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelfPlayBenchmark {
+
+    @Param({ "easy", "normal", "hard:depth=3:timeMillis=0:endgameEmpties=10" })
+    public String profileSpec;
+
+    private PositionCorpus corpus;
+    private int index;
+    private ReversiAI black;
+    private ReversiAI white;
+
+    /**
+     * コーパスとAIを準備する
+     */
+    @Setup
+    public void setup() {
+        corpus = PositionCorpus.create(52);
+        AIProfile profile = AIProfile.parse(profileSpec);
+        black = profile.createAI(null, null);
+        white = profile.createAI(null, null);
+    }
+
+    @Benchmark
+    public int playGame() {
+
+        GameBoard board = corpus.getBoard(index).clone();
+        Piece piece = corpus.getPiece(index);
+        index = (index + 1) % corpus.size();
+
+        while ( board.canPutAll() ) {
+            if ( !board.canPut(piece) ) {
+                piece = piece.getReverse();
+                continue;
+            }
+            ReversiAI ai = (piece == Piece.BLACK) ? black : white;
+            int[] next = ai.getNext(board, piece);
+            board.putAt(next[0], next[1], piece);
+            piece = piece.getReverse();
+        }
+
+        return board.getBlackCount() - board.getWhiteCount();
+    }
+}
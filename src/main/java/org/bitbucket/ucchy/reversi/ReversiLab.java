@@ -6,10 +6,15 @@
 package org.bitbucket.ucchy.reversi;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import org.bitbucket.ucchy.reversi.ai.AIResultCache;
+import org.bitbucket.ucchy.reversi.ai.AIScheduler;
+import org.bitbucket.ucchy.reversi.ai.OpeningBook;
 import org.bitbucket.ucchy.reversi.bridge.VaultEcoBridge;
 import org.bitbucket.ucchy.reversi.game.GameSession;
 import org.bitbucket.ucchy.reversi.game.GameSessionManager;
@@ -38,6 +43,10 @@ public class ReversiLab extends JavaPlugin {
     private GameSessionManager gameSessionManager;
     private ReversiLabCommand command;
     private PlayerMoveChecker checker;
+    private ForkJoinPool searchThreadPool;
+    private AIScheduler aiScheduler;
+    private OpeningBook openingBook;
+    private AIResultCache aiResultCache;
 
     private VaultEcoBridge vaulteco;
 
@@ -81,9 +90,33 @@ public class ReversiLab extends JavaPlugin {
             config.setBetRewardType(BetRewardType.NONE);
         }
 
+        // CPUの並列探索用のスレッドプールを作成
+        searchThreadPool = new ForkJoinPool(Math.max(1, config.getSearchThreadPoolSize()));
+
+        // CPUの思考を実行するスケジューラを作成
+        aiScheduler = new AIScheduler(config.getCpuWorkerThreads(), config.getCpuMaxQueueSize());
+
+        // セッション間で共有する、CPUの思考結果のキャッシュを作成
+        if ( config.getCpuResultCacheSize() > 0 ) {
+            aiResultCache = new AIResultCache(config.getCpuResultCacheSize());
+        }
+
+        // 定石ブックのロード
+        File bookFile = new File(getDataFolder(), OpeningBook.FILE_NAME);
+        if ( config.isUseOpeningBook() && bookFile.exists() ) {
+            try {
+                openingBook = OpeningBook.load(bookFile);
+            } catch (IOException e) {
+                getLogger().warning("Could not load the opening book : " + e.getMessage());
+            }
+        }
+
         // マネージャの作成
         gameSessionManager = new GameSessionManager(this);
 
+        // 次の対局のためのゲームフィールドを、あらかじめ生成しておく
+        gameSessionManager.getArenaPool().prepare(this);
+
         // コマンドの準備
         command = new ReversiLabCommand(this);
 
@@ -113,10 +146,30 @@ public class ReversiLab extends JavaPlugin {
             }
         }
 
+        // 待機中のゲームフィールドを片付ける
+        gameSessionManager.getArenaPool().dispose();
+
         // チェッカーの動作を停止する
         if ( checker != null ) {
             checker.cancel();
         }
+
+        // CPUの思考用のスケジューラを停止する
+        if ( aiScheduler != null ) {
+            aiScheduler.shutdown();
+        }
+
+        // CPUの思考結果のキャッシュの利用状況を記録する
+        if ( aiResultCache != null ) {
+            getLogger().info("AI result cache : " + aiResultCache.getSize() + "/" + aiResultCache.getCapacity()
+                    + " entries, " + aiResultCache.getHitCount() + " hits, "
+                    + aiResultCache.getMissCount() + " misses");
+        }
+
+        // 並列探索用のスレッドプールを停止する
+        if ( searchThreadPool != null ) {
+            searchThreadPool.shutdownNow();
+        }
     }
 
     /**
@@ -211,6 +264,38 @@ public class ReversiLab extends JavaPlugin {
         return gameSessionManager;
     }
 
+    /**
+     * CPUの並列探索に使う、プラグイン全体で共有のスレッドプールを取得する
+     * @return スレッドプール
+     */
+    public ForkJoinPool getSearchThreadPool() {
+        return searchThreadPool;
+    }
+
+    /**
+     * CPUの思考を実行するスケジューラを取得する
+     * @return スケジューラ
+     */
+    public AIScheduler getAIScheduler() {
+        return aiScheduler;
+    }
+
+    /**
+     * CPUが参照する定石ブックを取得する
+     * @return 定石ブック、ロードされていない場合はnull
+     */
+    public OpeningBook getOpeningBook() {
+        return openingBook;
+    }
+
+    /**
+     * 全てのセッションで共有する、CPUの思考結果のキャッシュを取得する
+     * @return キャッシュ、使用しない設定の場合はnull
+     */
+    public AIResultCache getAIResultCache() {
+        return aiResultCache;
+    }
+
     /**
      * このプラグインのJarファイルを返す
      * @return
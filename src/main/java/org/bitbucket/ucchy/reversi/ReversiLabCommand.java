@@ -8,6 +8,7 @@ package org.bitbucket.ucchy.reversi;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
 import org.bitbucket.ucchy.reversi.game.GameSession;
 import org.bitbucket.ucchy.reversi.game.SingleGameDifficulty;
 import org.bitbucket.ucchy.reversi.game.VersusGameSession;
@@ -89,6 +90,18 @@ public class ReversiLabCommand implements TabExecutor {
             return candidates;
         }
 
+        // singleの2番目の引数（AIプロファイル名）の補完
+        if ( args.length == 2 && args[0].equalsIgnoreCase("single") ) {
+            String pre = args[1].toLowerCase();
+            ArrayList<String> candidates = new ArrayList<String>();
+            for ( AIProfile profile : parent.getReversiLabConfig().getAIProfiles() ) {
+                if ( profile.getName().startsWith(pre) ) {
+                    candidates.add(profile.getName());
+                }
+            }
+            return candidates;
+        }
+
         return null;
     }
 
@@ -107,16 +120,16 @@ public class ReversiLabCommand implements TabExecutor {
         }
 
         Player player = (Player)sender;
-        SingleGameDifficulty difficulty = SingleGameDifficulty.NORMAL;
+        AIProfile profile = parent.getReversiLabConfig().getDefaultAIProfile();
 
-        // 難易度指定の取得
+        // 難易度（AIプロファイル名）指定の取得
         if ( args.length >= 2 ) {
-            if ( args[1].equalsIgnoreCase("easy") ) {
-                difficulty = SingleGameDifficulty.EASY;
-            } else if ( args[1].equalsIgnoreCase("hard") ) {
-                difficulty = SingleGameDifficulty.HARD;
+            AIProfile specified = parent.getReversiLabConfig().getAIProfile(args[1]);
+            if ( specified != null ) {
+                profile = specified;
             }
         }
+        SingleGameDifficulty difficulty = profile.getRank();
 
         // 既にセッションに居る場合はエラー
         if ( parent.getGameSessionManager().getSession(player) != null ) {
@@ -130,6 +143,12 @@ public class ReversiLabCommand implements TabExecutor {
             return true;
         }
 
+        // ゲームフィールドを置く空きが無い場合はエラー
+        if ( !parent.getGameSessionManager().hasOpenGrid() ) {
+            sendErrorMessage(sender, Messages.get("ErrorNoOpenArena"));
+            return true;
+        }
+
         // 掛け金、掛けアイテムが必要な場合は、ここで徴収する。
         // 無い場合はエラー
         ReversiLabConfig config = parent.getReversiLabConfig();
@@ -163,7 +182,7 @@ public class ReversiLabCommand implements TabExecutor {
         }
 
         // ゲームセッションを作成する
-        parent.getGameSessionManager().createNewSingleGameSession(player, difficulty);
+        parent.getGameSessionManager().createNewSingleGameSession(player, profile);
 
         return true;
     }
@@ -221,6 +240,12 @@ public class ReversiLabCommand implements TabExecutor {
             return true;
         }
 
+        // ゲームフィールドを置く空きが無い場合はエラー
+        if ( !parent.getGameSessionManager().hasOpenGrid() ) {
+            sendErrorMessage(sender, Messages.get("ErrorNoOpenArena"));
+            return true;
+        }
+
         // 掛け金、掛けアイテムが必要な場合は、持っているかどうかを確認する。持っていないならエラー
         ReversiLabConfig config = parent.getReversiLabConfig();
         if ( config.getBetRewardType() != BetRewardType.NONE ) {
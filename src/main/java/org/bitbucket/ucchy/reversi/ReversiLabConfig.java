@@ -7,10 +7,18 @@ package org.bitbucket.ucchy.reversi;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
+import org.bitbucket.ucchy.reversi.ai.AIResultCache;
+import org.bitbucket.ucchy.reversi.ai.AIScheduler;
+import org.bitbucket.ucchy.reversi.game.ArenaPool;
+import org.bitbucket.ucchy.reversi.game.GridAllocator;
 import org.bitbucket.ucchy.reversi.game.SingleGameDifficulty;
 import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.inventory.ItemStack;
 
@@ -35,6 +43,15 @@ public class ReversiLabConfig {
     /** インベントリ切り替えシステムを使用するかどうか */
     private boolean enableTemporaryInventory;
 
+    /** 同時に置けるゲームフィールドの最大数 */
+    private int arenaCapacity;
+
+    /** 次の対局のために、生成したまま待機させておくゲームフィールドの数 */
+    private int arenaPoolSize;
+
+    /** ゲームフィールドの後片付けに使う、1tickあたりの処理時間（ミリ秒） */
+    private int arenaCleanupMillisPerTick;
+
     private BetRewardType betRewardType;
 
     private ItemStack versusBetItem;
@@ -55,6 +72,32 @@ public class ReversiLabConfig {
     private int hardBetEco;
     private int hardRewardEco;
 
+    /** CPUの強さの設定（プロファイル名ごと、設定ファイルの順） */
+    private LinkedHashMap<String, AIProfile> aiProfiles;
+
+    /** CPUが定石ブックを使うかどうか */
+    private boolean useOpeningBook;
+
+    /** CPUの並列探索に使うスレッドプールの、スレッド数の上限 */
+    private int searchThreadPoolSize;
+
+    /** CPUの思考を実行するワーカースレッド数 */
+    private int cpuWorkerThreads;
+
+    /** CPUの思考の順番待ちができる数の上限 */
+    private int cpuMaxQueueSize;
+
+    /** 難易度ごとの、CPUが1手を打つまでの期限（ミリ秒） */
+    private long easyMoveTimeMillis;
+    private long normalMoveTimeMillis;
+    private long hardMoveTimeMillis;
+
+    /** プレイヤーの手番の間に、CPUが応手を先読みするかどうか */
+    private boolean cpuPondering;
+
+    /** セッション間で共有する、CPUの思考結果のキャッシュのエントリ数 */
+    private int cpuResultCacheSize;
+
     /**
      * コンストラクタ
      */
@@ -106,6 +149,9 @@ public class ReversiLabConfig {
         prohibitWorlds = conf.getStringList("prohibitWorlds");
         sessionEndWaitSeconds = conf.getInt("sessionEndWaitSeconds", 15);
         enableTemporaryInventory = conf.getBoolean("enableTemporaryInventory", false);
+        arenaCapacity = conf.getInt("arenaCapacity", GridAllocator.DEFAULT_CAPACITY);
+        arenaPoolSize = conf.getInt("arenaPoolSize", ArenaPool.DEFAULT_SIZE);
+        arenaCleanupMillisPerTick = conf.getInt("arenaCleanupMillisPerTick", 2);
 
         betRewardType = BetRewardType.fromString(
                 conf.getString("betRewardType"), BetRewardType.NONE);
@@ -127,6 +173,17 @@ public class ReversiLabConfig {
         normalRewardEco = conf.getInt("normalRewardEco", 0);
         hardBetEco = conf.getInt("hardBetEco", 0);
         hardRewardEco = conf.getInt("hardRewardEco", 0);
+
+        loadAIProfiles(conf);
+        useOpeningBook = conf.getBoolean("useOpeningBook", true);
+        searchThreadPoolSize = conf.getInt("searchThreadPoolSize", 4);
+        cpuWorkerThreads = conf.getInt("cpuWorkerThreads", AIScheduler.DEFAULT_WORKERS);
+        cpuMaxQueueSize = conf.getInt("cpuMaxQueueSize", AIScheduler.DEFAULT_MAX_QUEUE_SIZE);
+        easyMoveTimeMillis = conf.getLong("easyMoveTimeMillis", 1000);
+        normalMoveTimeMillis = conf.getLong("normalMoveTimeMillis", 1000);
+        hardMoveTimeMillis = conf.getLong("hardMoveTimeMillis", 5000);
+        cpuPondering = conf.getBoolean("cpuPondering", true);
+        cpuResultCacheSize = conf.getInt("cpuResultCacheSize", AIResultCache.DEFAULT_SIZE);
     }
 
     public String getLang() {
@@ -149,6 +206,18 @@ public class ReversiLabConfig {
         return enableTemporaryInventory;
     }
 
+    public int getArenaCapacity() {
+        return arenaCapacity;
+    }
+
+    public int getArenaPoolSize() {
+        return arenaPoolSize;
+    }
+
+    public int getArenaCleanupMillisPerTick() {
+        return arenaCleanupMillisPerTick;
+    }
+
     public BetRewardType getBetRewardType() {
         return betRewardType;
     }
@@ -217,6 +286,71 @@ public class ReversiLabConfig {
         return hardRewardEco;
     }
 
+    /**
+     * 指定された名前のAIプロファイルを返す
+     * @param name プロファイル名（大文字小文字は区別しない）
+     * @return AIプロファイル、無い場合はnull
+     */
+    public AIProfile getAIProfile(String name) {
+        if ( name == null ) return null;
+        return aiProfiles.get(name.toLowerCase());
+    }
+
+    /**
+     * 難易度が指定されなかったときに使うAIプロファイルを返す。
+     * normal があればそれを、無ければ最初のプロファイルを返す。
+     * @return AIプロファイル
+     */
+    public AIProfile getDefaultAIProfile() {
+        AIProfile profile = aiProfiles.get("normal");
+        if ( profile != null ) return profile;
+        return aiProfiles.values().iterator().next();
+    }
+
+    /**
+     * 全てのAIプロファイルを、設定ファイルの順に返す
+     * @return AIプロファイルのリスト
+     */
+    public List<AIProfile> getAIProfiles() {
+        return new ArrayList<AIProfile>(aiProfiles.values());
+    }
+
+    public boolean isUseOpeningBook() {
+        return useOpeningBook;
+    }
+
+    public int getSearchThreadPoolSize() {
+        return searchThreadPoolSize;
+    }
+
+    public int getCpuWorkerThreads() {
+        return cpuWorkerThreads;
+    }
+
+    public int getCpuMaxQueueSize() {
+        return cpuMaxQueueSize;
+    }
+
+    public long getEasyMoveTimeMillis() {
+        return easyMoveTimeMillis;
+    }
+
+    public long getNormalMoveTimeMillis() {
+        return normalMoveTimeMillis;
+    }
+
+    public long getHardMoveTimeMillis() {
+        return hardMoveTimeMillis;
+    }
+
+    public boolean isCpuPondering() {
+        return cpuPondering;
+    }
+
+    public int getCpuResultCacheSize() {
+        return cpuResultCacheSize;
+    }
+
     protected void setBetRewardType(BetRewardType betRewardType) {
         this.betRewardType = betRewardType;
     }
@@ -269,6 +403,68 @@ public class ReversiLabConfig {
         return 0;
     }
 
+    public long getMoveTimeMillis(SingleGameDifficulty difficulty) {
+        switch ( difficulty ) {
+        case EASY:
+            return getEasyMoveTimeMillis();
+        case NORMAL:
+            return getNormalMoveTimeMillis();
+        case HARD:
+            return getHardMoveTimeMillis();
+        }
+        return 0;
+    }
+
+    /**
+     * aiProfiles セクションからAIプロファイルを読み込む。
+     * セクションが無い（以前のバージョンの）設定ファイルでは、easy、normal、hard を初期値で作成し、
+     * hard には以前の hardSearchDepth などの設定を反映する。
+     * @param conf コンフィグ
+     */
+    private void loadAIProfiles(FileConfiguration conf) {
+
+        aiProfiles = new LinkedHashMap<String, AIProfile>();
+
+        ConfigurationSection section = conf.getConfigurationSection("aiProfiles");
+        if ( section != null ) {
+            for ( String key : section.getKeys(false) ) {
+                ConfigurationSection sub = section.getConfigurationSection(key);
+                if ( sub == null ) continue;
+                String name = key.toLowerCase();
+                SingleGameDifficulty rank = SingleGameDifficulty.fromString(
+                        sub.getString("rank"), SingleGameDifficulty.HARD);
+                AIProfile profile = new AIProfile(name, rank);
+                profile.setDepth(sub.getInt("depth", profile.getDepth()));
+                profile.setTimeLimit(sub.getLong("timeMillis", profile.getTimeLimit()));
+                profile.setNodeLimit(sub.getLong("nodeLimit", profile.getNodeLimit()));
+                profile.setNoise(sub.getInt("noise", profile.getNoise()));
+                profile.setUseOpeningBook(sub.getBoolean("openingBook", profile.isUseOpeningBook()));
+                profile.setEndgameEmpties(sub.getInt("endgameEmpties", profile.getEndgameEmpties()));
+                profile.setTableSize(sub.getInt("tableSize", profile.getTableSize()));
+                profile.setThreads(sub.getInt("threads", profile.getThreads()));
+                try {
+                    profile.setEvaluator(sub.getString("evaluator", profile.getEvaluator()));
+                } catch (IllegalArgumentException e) {
+                    ReversiLab.getInstance().getLogger().warning("aiProfiles." + key + " : " + e.getMessage());
+                }
+                aiProfiles.put(name, profile);
+            }
+        }
+
+        if ( aiProfiles.isEmpty() ) {
+            for ( SingleGameDifficulty rank : SingleGameDifficulty.values() ) {
+                String name = rank.name().toLowerCase();
+                aiProfiles.put(name, new AIProfile(name, rank));
+            }
+            AIProfile hard = aiProfiles.get("hard");
+            hard.setDepth(conf.getInt("hardSearchDepth", hard.getDepth()));
+            hard.setTimeLimit(conf.getLong("hardSearchTimeMillis", hard.getTimeLimit()));
+            hard.setTableSize(conf.getInt("hardTranspositionTableSize", hard.getTableSize()));
+            hard.setThreads(conf.getInt("hardSearchThreads", hard.getThreads()));
+            hard.setEndgameEmpties(conf.getInt("hardEndgameEmpties", hard.getEndgameEmpties()));
+        }
+    }
+
     private static ItemStack getItemStack(String str) {
         if ( str == null ) return null;
         String[] temp = str.split("-");
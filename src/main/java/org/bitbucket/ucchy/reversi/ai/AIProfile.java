@@ -0,0 +1,262 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.bitbucket.ucchy.reversi.game.SingleGameDifficulty;
+
+/**
+ * CPUの強さを決める探索の設定（AIプロファイル）。<br/>
+ * 探索深度、思考時間とノード数の上限、評価値に加える乱数の幅、定石ブックの使用、読み切りを始める空きマス数、評価関数を持つ。
+ * ランキング、掛け金と報酬、思考の優先度には、プロファイルの属する難易度（ランク）が使われる。
+ * @author ucchy
+ */
+public class AIProfile {
+
+    /** 評価関数：パターンによる評価関数（初期値） */
+    public static final String EVALUATOR_PATTERN = "pattern";
+
+    /** 評価関数：マス目ごとの重み付けテーブル。以前の評価関数で、強さを比べる基準に使う */
+    public static final String EVALUATOR_PRIORITY = "priority";
+
+    private String name;
+    private SingleGameDifficulty rank;
+    private int depth;
+    private long timeLimit;
+    private long nodeLimit;
+    private int noise;
+    private boolean useOpeningBook;
+    private int endgameEmpties;
+    private int tableSize;
+    private int threads;
+    private String evaluator;
+
+    /**
+     * コンストラクタ。探索の設定は、ランクごとの初期値になる。
+     * @param name プロファイル名
+     * @param rank 属する難易度
+     */
+    public AIProfile(String name, SingleGameDifficulty rank) {
+        this.name = name;
+        this.rank = rank;
+        this.timeLimit = ReversiAISearch.DEFAULT_TIME_LIMIT;
+        this.threads = 1;
+        this.evaluator = EVALUATOR_PATTERN;
+        switch ( rank ) {
+        case EASY:
+            // 浅い探索では置換表の効果がほとんど無いので、使用しない
+            this.depth = 1;
+            this.noise = 300;
+            this.useOpeningBook = false;
+            this.endgameEmpties = 0;
+            this.tableSize = 0;
+            break;
+        case NORMAL:
+            this.depth = 2;
+            this.noise = 80;
+            this.useOpeningBook = false;
+            this.endgameEmpties = 0;
+            this.tableSize = 0;
+            break;
+        default:
+            this.depth = ReversiAISearch.DEFAULT_DEPTH;
+            this.noise = 0;
+            this.useOpeningBook = true;
+            this.endgameEmpties = EndgameSolver.DEFAULT_EMPTIES;
+            this.tableSize = TranspositionTable.DEFAULT_SIZE;
+            break;
+        }
+    }
+
+    /**
+     * サーバーなしで使うツールのために、文字列からプロファイルを作成する。<br/>
+     * 書式は「名前[:キー=値...]」で、キーには config.yml の aiProfiles と同じもの
+     * （rank、depth、timeMillis、nodeLimit、noise、openingBook、endgameEmpties、tableSize、threads、evaluator）を使う。
+     * rank を省略した場合、名前が難易度名ならその難易度、そうでなければ HARD になる。<br/>
+     * 例： easy、hard:timeMillis=500、expert:rank=hard:depth=12:timeMillis=4000:endgameEmpties=20、
+     * baseline:evaluator=priority
+     * @param spec 文字列
+     * @return プロファイル
+     * @throws IllegalArgumentException 書式が正しくない場合
+     */
+    public static AIProfile parse(String spec) {
+
+        String[] tokens = spec.trim().split(":");
+        String name = tokens[0].trim().toLowerCase();
+        if ( name.length() == 0 ) {
+            throw new IllegalArgumentException("Profile name is empty : " + spec);
+        }
+
+        LinkedHashMap<String, String> options = new LinkedHashMap<String, String>();
+        for ( int i=1; i<tokens.length; i++ ) {
+            String[] pair = tokens[i].split("=", 2);
+            if ( pair.length != 2 ) {
+                throw new IllegalArgumentException("Invalid profile option : " + tokens[i]);
+            }
+            options.put(pair[0].trim(), pair[1].trim());
+        }
+
+        SingleGameDifficulty rank = SingleGameDifficulty.fromString(name, SingleGameDifficulty.HARD);
+        if ( options.containsKey("rank") ) {
+            rank = SingleGameDifficulty.fromString(options.remove("rank"), null);
+            if ( rank == null ) {
+                throw new IllegalArgumentException("Invalid profile rank : " + spec);
+            }
+        }
+
+        AIProfile profile = new AIProfile(name, rank);
+        for ( Map.Entry<String, String> option : options.entrySet() ) {
+            String value = option.getValue();
+            switch ( option.getKey() ) {
+            case "depth":
+                profile.setDepth(Integer.parseInt(value));
+                break;
+            case "timeMillis":
+                profile.setTimeLimit(Long.parseLong(value));
+                break;
+            case "nodeLimit":
+                profile.setNodeLimit(Long.parseLong(value));
+                break;
+            case "noise":
+                profile.setNoise(Integer.parseInt(value));
+                break;
+            case "openingBook":
+                profile.setUseOpeningBook(Boolean.parseBoolean(value));
+                break;
+            case "endgameEmpties":
+                profile.setEndgameEmpties(Integer.parseInt(value));
+                break;
+            case "tableSize":
+                profile.setTableSize(Integer.parseInt(value));
+                break;
+            case "threads":
+                profile.setThreads(Integer.parseInt(value));
+                break;
+            case "evaluator":
+                profile.setEvaluator(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown profile option : " + option.getKey());
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * このプロファイルで思考するAIを作成する
+     * @param executor 並列探索に使うスレッドプール、使用しない場合はnull
+     * @param book 定石ブック、ロードされていない場合はnull
+     * @return AI
+     */
+    public ReversiAISearch createAI(ExecutorService executor, OpeningBook book) {
+        ReversiAISearch ai = new ReversiAISearch(this, executor);
+        ai.setOpeningBook(useOpeningBook ? book : null);
+        return ai;
+    }
+
+    /**
+     * このプロファイルの評価関数を作成する
+     * @return 評価関数
+     */
+    public BoardEvaluator createEvaluator() {
+        if ( EVALUATOR_PRIORITY.equals(evaluator) ) {
+            return new PriorityEvaluator();
+        }
+        return new PatternEvaluator();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SingleGameDifficulty getRank() {
+        return rank;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = Math.max(1, Math.min(depth, SearchEngine.MAX_DEPTH));
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public int getNoise() {
+        return noise;
+    }
+
+    public void setNoise(int noise) {
+        this.noise = Math.max(noise, 0);
+    }
+
+    public boolean isUseOpeningBook() {
+        return useOpeningBook;
+    }
+
+    public void setUseOpeningBook(boolean useOpeningBook) {
+        this.useOpeningBook = useOpeningBook;
+    }
+
+    public int getEndgameEmpties() {
+        return endgameEmpties;
+    }
+
+    public void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    public void setTableSize(int tableSize) {
+        this.tableSize = tableSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(threads, 1);
+    }
+
+    public String getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * 評価関数を設定する
+     * @param evaluator 評価関数の名前（pattern または priority）
+     * @throws IllegalArgumentException 名前が正しくない場合
+     */
+    public void setEvaluator(String evaluator) {
+        String name = evaluator.trim().toLowerCase();
+        if ( !name.equals(EVALUATOR_PATTERN) && !name.equals(EVALUATOR_PRIORITY) ) {
+            throw new IllegalArgumentException("Unknown evaluator : " + evaluator);
+        }
+        this.evaluator = name;
+    }
+}
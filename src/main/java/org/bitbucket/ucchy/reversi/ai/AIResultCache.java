@@ -0,0 +1,187 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bitbucket.ucchy.reversi.game.BoardSymmetry;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 全てのゲームセッションで共有する、CPUの思考結果のキャッシュ。<br/>
+ * （局面、手番、AIプロファイル）ごとに、選んだ手と評価値と、それを求めた探索深度を記録する。
+ * 同じ局面に、記録済みのものより浅い探索の結果を記録しようとした場合は、記録済みのものを残す。
+ * 局面は BoardSymmetry の正規形に揃えて記録するので、回転・反転した局面も同じエントリを使う。<br/>
+ * エントリ数が上限を超えたら、最も長く参照されていないものから捨てる（LRU）。
+ * 複数のワーカースレッドから同時に呼び出してよい。
+ * @author ucchy
+ */
+public class AIResultCache {
+
+    /** エントリ数の上限の初期値 */
+    public static final int DEFAULT_SIZE = 4096;
+
+    /** 終局まで読み切った結果の探索深度 */
+    public static final int EXACT_DEPTH = Integer.MAX_VALUE;
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Result> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * コンストラクタ
+     * @param capacity エントリ数の上限
+     */
+    public AIResultCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<Long, Result>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Result> eldest) {
+                return size() > AIResultCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * 記録された思考結果を返す
+     * @param board 盤面
+     * @param piece 手番
+     * @param profile AIプロファイル名
+     * @return { 次に置く場所のビット位置, 評価値, 探索深度 }、記録されていない場合はnull
+     */
+    public int[] get(GameBoard board, Piece piece, String profile) {
+
+        long black = board.getMaskOf(Piece.BLACK);
+        long white = board.getMaskOf(Piece.WHITE);
+        int symmetry = BoardSymmetry.getCanonicalSymmetry(black, white);
+        long canonicalBlack = BoardSymmetry.transform(black, symmetry);
+        long canonicalWhite = BoardSymmetry.transform(white, symmetry);
+
+        Result entry;
+        synchronized ( entries ) {
+            entry = entries.get(getKey(black, white, piece, symmetry, profile));
+        }
+
+        // キーの衝突に備えて、局面そのものを比べる
+        if ( entry == null || entry.black != canonicalBlack || entry.white != canonicalWhite
+                || entry.piece != piece || !entry.profile.equals(profile) ) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        int square = BoardSymmetry.transformSquare(entry.move, BoardSymmetry.inverse(symmetry));
+        return new int[] {square, entry.score, entry.depth};
+    }
+
+    /**
+     * 思考結果を記録する
+     * @param board 盤面
+     * @param piece 手番
+     * @param profile AIプロファイル名
+     * @param square 選んだ手のビット位置
+     * @param score 評価値
+     * @param depth 最後まで完了した探索深度、読み切った場合は EXACT_DEPTH
+     */
+    public void put(GameBoard board, Piece piece, String profile, int square, int score, int depth) {
+
+        long black = board.getMaskOf(Piece.BLACK);
+        long white = board.getMaskOf(Piece.WHITE);
+        int symmetry = BoardSymmetry.getCanonicalSymmetry(black, white);
+
+        Result entry = new Result();
+        entry.black = BoardSymmetry.transform(black, symmetry);
+        entry.white = BoardSymmetry.transform(white, symmetry);
+        entry.piece = piece;
+        entry.profile = profile;
+        entry.move = BoardSymmetry.transformSquare(square, symmetry);
+        entry.score = score;
+        entry.depth = depth;
+
+        long key = getKey(black, white, piece, symmetry, profile);
+        synchronized ( entries ) {
+            Result old = entries.get(key);
+            if ( old != null && old.depth > depth && old.black == entry.black && old.white == entry.white
+                    && old.piece == piece && old.profile.equals(profile) ) {
+                return;
+            }
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * 全てのエントリを消去する。ヒット数とミス数は変わらない。
+     */
+    public void clear() {
+        synchronized ( entries ) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 記録されているエントリ数を返す
+     * @return エントリ数
+     */
+    public int getSize() {
+        synchronized ( entries ) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * エントリ数の上限を返す
+     * @return エントリ数の上限
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 思考結果が見つかった回数を返す
+     * @return ヒット数
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * 思考結果が見つからなかった回数を返す
+     * @return ミス数
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * エントリのキーを返す
+     * @param black 黒石のマスク
+     * @param white 白石のマスク
+     * @param piece 手番
+     * @param symmetry 正規形にする変換の番号
+     * @param profile AIプロファイル名
+     * @return キー
+     */
+    private static long getKey(long black, long white, Piece piece, int symmetry, String profile) {
+        return BoardSymmetry.getKey(black, white, piece, symmetry) + profile.hashCode() * 0x9e3779b97f4a7c15L;
+    }
+
+    /**
+     * 1つの思考結果（局面と手は正規形の向き）
+     */
+    private static class Result {
+        private long black;
+        private long white;
+        private Piece piece;
+        private String profile;
+        private int move;
+        private int score;
+        private int depth;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+import org.bitbucket.ucchy.reversi.game.SingleGameDifficulty;
+
+/**
+ * CPUの思考を実行する、プラグイン専用のスケジューラ。<br/>
+ * 固定数のワーカースレッドで、難易度ごとの優先度つきの待ち行列からタスクを取り出して実行する。
+ * 思考時間の短い難易度ほど優先度が高い。待ち行列が上限に達している場合は、依頼を受け付けない。<br/>
+ * 相手の手番の間の先読みは、最も低い優先度で実行し、空いているワーカーが無いときに1手分の思考が依頼されたら中断させる。
+ * 先読みは、実行中と実行待ちを合わせてワーカー数までしか受け付けず、1手分の思考の待ち行列の上限にも数えない。
+ * @author ucchy
+ */
+public class AIScheduler {
+
+    /** ワーカースレッド数の初期値 */
+    public static final int DEFAULT_WORKERS = 2;
+
+    /** 待ち行列の長さの上限の初期値 */
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 32;
+
+    /** 先読みのタスクの優先度 */
+    private static final int PONDER_PRIORITY = Integer.MAX_VALUE;
+
+    private ThreadPoolExecutor executor;
+    private int maxQueueSize;
+    private AtomicLong sequence = new AtomicLong();
+    private Set<AITask> ponderTasks = Collections.newSetFromMap(new ConcurrentHashMap<AITask, Boolean>());
+
+    /**
+     * コンストラクタ
+     * @param workers ワーカースレッド数
+     * @param maxQueueSize 実行を待っているタスク数の上限
+     */
+    public AIScheduler(int workers, int maxQueueSize) {
+        this.maxQueueSize = Math.max(1, maxQueueSize);
+        workers = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                    private AtomicInteger count = new AtomicInteger();
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ReversiLab-AI-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * AIに次の手の思考を依頼する。盤面はこの時点でコピーされるので、呼び出し後に変更してもよい。
+     * @param ai 思考するAI
+     * @param board 盤面
+     * @param piece 手番
+     * @param callback 思考が完了したときのコールバック（ワーカースレッドから呼び出される）
+     * @return 依頼したタスク、待ち行列がいっぱいか停止済みで受け付けられなかった場合はnull
+     */
+    public AITask submit(ReversiAI ai, GameBoard board, Piece piece, AITaskCallback callback) {
+        return submit(ai, board, piece, 0, callback);
+    }
+
+    /**
+     * 期限を指定して、AIに次の手の思考を依頼する。待ち行列で待っている間も、期限までの時間に含まれる。
+     * 盤面はこの時点でコピーされるので、呼び出し後に変更してもよい。
+     * @param ai 思考するAI
+     * @param board 盤面
+     * @param piece 手番
+     * @param deadline 思考の期限（System.currentTimeMillis() の値）、0以下ならAIの既定の時間制限に従う
+     * @param callback 思考が完了したときのコールバック（ワーカースレッドから呼び出される）
+     * @return 依頼したタスク、待ち行列がいっぱいか停止済みで受け付けられなかった場合はnull
+     */
+    public AITask submit(ReversiAI ai, GameBoard board, Piece piece, long deadline, AITaskCallback callback) {
+
+        // 実行待ちの先読みは、上限に数えない
+        if ( executor.isShutdown()
+                || executor.getQueue().size() - countPonders(true) >= maxQueueSize ) {
+            return null;
+        }
+
+        AITask task = new AITask(ai, board.clone(), piece, deadline, callback,
+                getPriority(ai.getDifficulty()), sequence.getAndIncrement());
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+
+        // 全てのワーカーが埋まっているなら、先読みを1つ中断させて、ワーカーを空ける
+        if ( executor.getActiveCount() >= executor.getMaximumPoolSize() ) {
+            preemptPonder();
+        }
+        return task;
+    }
+
+    /**
+     * 相手の手番の間の先読みを依頼する。他の全てのタスクより後に実行される。
+     * 盤面はこの時点でコピーされるので、呼び出し後に変更してもよい。
+     * @param ai 先読みするAI
+     * @param board 盤面
+     * @param opponent 手番の相手側の石
+     * @return 依頼したタスク、待ち行列がいっぱいか停止済みで受け付けられなかった場合はnull
+     */
+    public AITask submitPonder(PonderingAI ai, GameBoard board, Piece opponent) {
+
+        if ( executor.isShutdown() || executor.getQueue().size() >= maxQueueSize
+                || countPonders(false) >= executor.getMaximumPoolSize() ) {
+            return null;
+        }
+
+        AITask task = new AITask(ai, board.clone(), opponent, PONDER_PRIORITY, sequence.getAndIncrement());
+        ponderTasks.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            ponderTasks.remove(task);
+            return null;
+        }
+        return task;
+    }
+
+    /**
+     * 実行中の先読みのタスクを1つ中断させる。終わったタスクは、ついでに記録から取り除く。
+     */
+    private void preemptPonder() {
+        Iterator<AITask> it = ponderTasks.iterator();
+        while ( it.hasNext() ) {
+            AITask task = it.next();
+            if ( task.isDone() || task.isCancelled() ) {
+                it.remove();
+            } else if ( task.isRunning() ) {
+                task.cancel();
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 先読みのタスク数を数える。終わったタスクは、ついでに記録から取り除く。
+     * @param waitingOnly 実行待ちのタスクだけを数えるかどうか
+     * @return タスク数
+     */
+    private int countPonders(boolean waitingOnly) {
+        int count = 0;
+        Iterator<AITask> it = ponderTasks.iterator();
+        while ( it.hasNext() ) {
+            AITask task = it.next();
+            if ( task.isDone() || task.isCancelled() ) {
+                it.remove();
+            } else if ( !waitingOnly || !task.isRunning() ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * タスクをキャンセルする。実行待ちなら待ち行列から取り除き、思考中なら中断させる。
+     * @param task タスク
+     */
+    public void cancel(AITask task) {
+        task.cancel();
+        executor.remove(task);
+        if ( task.isPonder() ) {
+            ponderTasks.remove(task);
+        }
+    }
+
+    /**
+     * 実行を待っているタスク数を返す
+     * @return タスク数
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * 思考中のタスク数を返す
+     * @return タスク数
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * スケジューラを停止する。実行待ちのタスクは破棄され、思考中のタスクは中断される。
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 難易度に対応する優先度を返す。小さいほど先に実行される。
+     * @param difficulty 難易度
+     * @return 優先度
+     */
+    private static int getPriority(SingleGameDifficulty difficulty) {
+        return (difficulty != null) ? difficulty.ordinal() : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * AIスケジューラに依頼された、1手分の思考か、相手の手番の間の先読みのタスク。<br/>
+ * 優先度の値が小さいものから、同じ優先度なら依頼された順に実行される。
+ * @author ucchy
+ */
+public class AITask implements Runnable, Comparable<AITask> {
+
+    private ReversiAI ai;
+    private GameBoard board;
+    private Piece piece;
+    private long deadline;
+    private AITaskCallback callback;
+    private int priority;
+    private long sequence;
+
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private Thread runner;
+
+    /**
+     * コンストラクタ
+     * @param ai 思考するAI
+     * @param board 盤面（タスク専用のコピー）
+     * @param piece 手番
+     * @param deadline 思考の期限（System.currentTimeMillis() の値）、0以下ならAIの既定の時間制限に従う
+     * @param callback 思考が完了したときのコールバック
+     * @param priority 優先度、小さいほど先に実行される
+     * @param sequence 依頼された順番
+     */
+    protected AITask(ReversiAI ai, GameBoard board, Piece piece, long deadline, AITaskCallback callback,
+            int priority, long sequence) {
+        this.ai = ai;
+        this.board = board;
+        this.piece = piece;
+        this.deadline = deadline;
+        this.callback = callback;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    /**
+     * コンストラクタ。相手の手番の間に先読みする、コールバックの無いタスクを作る。
+     * @param ai 先読みするAI
+     * @param board 盤面（タスク専用のコピー）
+     * @param opponent 手番の相手側の石
+     * @param priority 優先度、小さいほど先に実行される
+     * @param sequence 依頼された順番
+     */
+    protected AITask(PonderingAI ai, GameBoard board, Piece opponent, int priority, long sequence) {
+        this(ai, board, opponent, 0, null, priority, sequence);
+    }
+
+    /**
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+
+        synchronized ( this ) {
+            if ( cancelled ) {
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+
+        int[] next = null;
+        try {
+            if ( callback == null ) {
+                ((PonderingAI)ai).ponder(board, piece);
+            } else {
+                next = ai.getNext(board, piece, deadline);
+            }
+        } finally {
+            synchronized ( this ) {
+                runner = null;
+                done = true;
+                // キャンセル時の割り込みを、次のタスクに持ち越さないようにする
+                Thread.interrupted();
+            }
+        }
+
+        if ( !cancelled && callback != null ) {
+            callback.onComplete(next);
+        }
+    }
+
+    /**
+     * タスクをキャンセルする。思考中であれば、思考を中断させる。
+     * キャンセルしたタスクのコールバックは呼び出されない。
+     */
+    public void cancel() {
+        synchronized ( this ) {
+            cancelled = true;
+            if ( runner != null ) {
+                runner.interrupt();
+            }
+        }
+    }
+
+    /**
+     * タスクがキャンセルされたかどうかを返す
+     * @return キャンセルされたかどうか
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * タスクが思考中かどうかを返す
+     * @return 思考中かどうか
+     */
+    public synchronized boolean isRunning() {
+        return runner != null;
+    }
+
+    /**
+     * タスクの実行が終わったかどうかを返す
+     * @return 実行が終わったかどうか
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 相手の手番の間に先読みするタスクかどうかを返す
+     * @return 先読みのタスクかどうか
+     */
+    public boolean isPonder() {
+        return callback == null;
+    }
+
+    /**
+     * 優先度を返す
+     * @return 優先度
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(AITask other) {
+        if ( priority != other.priority ) {
+            return (priority < other.priority) ? -1 : 1;
+        }
+        if ( sequence != other.sequence ) {
+            return (sequence < other.sequence) ? -1 : 1;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+/**
+ * AIスケジューラに依頼した思考が完了したときに呼び出されるコールバック
+ * @author ucchy
+ */
+public interface AITaskCallback {
+
+    /**
+     * 思考が完了したときに、AIスケジューラのワーカースレッドから呼び出される。
+     * キャンセルされたタスクでは呼び出されない。
+     * @param next 次に置く場所
+     */
+    public void onComplete(int[] next);
+}
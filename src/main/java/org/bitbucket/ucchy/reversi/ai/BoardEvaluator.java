@@ -0,0 +1,24 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 探索の末端で、盤面の評価値を算出する評価関数
+ * @author ucchy
+ */
+public interface BoardEvaluator {
+
+    /**
+     * 決着が付いていない盤面の評価値を返す。
+     * @param board 盤面
+     * @param piece どちらの手番から見た評価値か
+     * @return 評価値、大きいほど piece 側が有利
+     */
+    public int evaluate(GameBoard board, Piece piece);
+}
@@ -0,0 +1,507 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.BitBoard;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 終盤の完全読みを行うソルバー。評価値は、終局時の石差そのものになる。<br/>
+ * 空きマスは、マス目の優先順に並べた双方向リストで管理し、着手・取り消しのたびにリストから外したり戻したりする。
+ * 残りの空きマスが多いうちは、相手の着手可能数が少なくなる手から調べ（速さ優先）、
+ * 少なくなったら、空きマスが奇数個残っている象限の手から調べる（偶数理論）。<br/>
+ * 1つのインスタンスは、同時に1つのスレッドからしか solve を呼び出せない。
+ * @author ucchy
+ */
+public class EndgameSolver {
+
+    /** 完全読みに切り替える、残りの空きマス数の初期値 */
+    public static final int DEFAULT_EMPTIES = 16;
+
+    /** 評価値の上限（石差の最大値より大きい値） */
+    private static final int INFINITY = 65;
+
+    /** 残りの空きマスがこれより多い局面では、速さ優先で手を並べ替える */
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+
+    /** 残りの空きマスがこれ以上の局面は、読み切りの結果を置換表に記録する */
+    private static final int TABLE_EMPTIES = 8;
+
+    /** 置換表のエントリ数（2のべき乗） */
+    private static final int TABLE_SIZE = 1 << 16;
+
+    /** 置換表に最善手が無いことを示す値 */
+    private static final int NO_MOVE = 64;
+
+    /** 時間切れを確認する間隔（ノード数、2のべき乗） */
+    private static final int TIME_CHECK_INTERVAL = 4096;
+
+    /** 空きマスのリストの先頭と末尾を示す番兵 */
+    private static final int HEAD = 64;
+    private static final int TAIL = 65;
+
+    /** マス目ごとの調べる順番の優先度、小さいほど先に調べる */
+    private static final int[][] SQUARE_RANK = {
+        { 0, 6, 1, 2, 2, 1, 6, 0},
+        { 6, 7, 5, 4, 4, 5, 7, 6},
+        { 1, 5, 3, 3, 3, 3, 5, 1},
+        { 2, 4, 3, 3, 3, 3, 4, 2},
+        { 2, 4, 3, 3, 3, 3, 4, 2},
+        { 1, 5, 3, 3, 3, 3, 5, 1},
+        { 6, 7, 5, 4, 4, 5, 7, 6},
+        { 0, 6, 1, 2, 2, 1, 6, 0},
+    };
+
+    /** 調べる順番に並べたマス目 */
+    private static final int[] SQUARE_ORDER = new int[64];
+
+    /** マス目が属する象限のビット */
+    private static final int[] QUADRANT = new int[64];
+
+    static {
+        int index = 0;
+        for ( int rank=0; rank<=7; rank++ ) {
+            for ( int square=0; square<64; square++ ) {
+                if ( SQUARE_RANK[square / 8][square % 8] == rank ) {
+                    SQUARE_ORDER[index++] = square;
+                }
+            }
+        }
+        for ( int square=0; square<64; square++ ) {
+            int x = square % 8;
+            int y = square / 8;
+            QUADRANT[square] = 1 << (((y >= 4) ? 2 : 0) | ((x >= 4) ? 1 : 0));
+        }
+    }
+
+    private long timeLimit;
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+
+    private int[] next = new int[66];
+    private int[] prev = new int[66];
+    private int parity;
+
+    // 速さ優先の並べ替えに使う作業領域（残りの空きマス数ごと）。着手可能数は64を超えない。
+    private int[][] moveSquares = new int[65][64];
+    private long[][] moveFlips = new long[65][64];
+    private int[][] moveKeys = new int[65][64];
+
+    // 置換表。局面は手番側と相手側の石のマスクそのもので照合し、
+    // データには下限・上限の石差と最善手を詰め込む。1回の solve の中だけで使う。
+    private long[] tablePlayers = new long[TABLE_SIZE];
+    private long[] tableOpponents = new long[TABLE_SIZE];
+    private int[] tableDatas = new int[TABLE_SIZE];
+
+    private int score;
+    private boolean exact;
+
+    /**
+     * コンストラクタ
+     * @param timeLimit 1回の読み切りにかける時間の上限（ミリ秒）、0以下なら無制限
+     */
+    public EndgameSolver(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * 終局まで読み切って、最善手を返す。<br/>
+     * 時間切れや割り込みで中断した場合は、読み切れたルートの手の中から最善のものを返す。
+     * @param board 盤面（変更されない）
+     * @param piece 手番
+     * @return 最善手のビット位置（y * 8 + x）、置ける場所が無いか、1手も読み切れなかった場合は-1
+     */
+    public int solve(GameBoard board, Piece piece) {
+        return solve(board, piece, (timeLimit > 0) ? System.currentTimeMillis() + timeLimit : 0);
+    }
+
+    /**
+     * 期限を指定して、終局まで読み切って最善手を返す。<br/>
+     * 期限を過ぎた場合は、読み切れたルートの手の中から最善のものを返す。
+     * @param board 盤面（変更されない）
+     * @param piece 手番
+     * @param deadline 期限（System.currentTimeMillis() の値）、0以下なら無制限
+     * @return 最善手のビット位置（y * 8 + x）、置ける場所が無いか、1手も読み切れなかった場合は-1
+     */
+    public int solve(GameBoard board, Piece piece, long deadline) {
+
+        long player = board.getMaskOf(piece);
+        long opponent = board.getMaskOf(piece.getReverse());
+
+        nodes = 0;
+        aborted = false;
+        exact = false;
+        score = 0;
+        this.deadline = Math.max(deadline, 0);
+
+        // 空きマスのリストと、象限ごとの空きマス数の偶奇を作る
+        long empty = ~(player | opponent);
+        int empties = Long.bitCount(empty);
+        int last = HEAD;
+        parity = 0;
+        for ( int square : SQUARE_ORDER ) {
+            if ( ((empty >>> square) & 1) != 0 ) {
+                next[last] = square;
+                prev[square] = last;
+                last = square;
+                parity ^= QUADRANT[square];
+            }
+        }
+        next[last] = TAIL;
+        prev[TAIL] = last;
+
+        for ( int i=0; i<TABLE_SIZE; i++ ) {
+            tableDatas[i] = 0;
+        }
+
+        int count = sortMoves(player, opponent, empties);
+        if ( count == 0 ) {
+            return -1;
+        }
+
+        int[] squares = moveSquares[empties];
+        long[] flips = moveFlips[empties];
+        int alpha = -INFINITY;
+        int best = -1;
+        for ( int i=0; i<count; i++ ) {
+            int square = squares[i];
+            long bit = 1L << square;
+            removeEmpty(square);
+            int value = -search(opponent & ~flips[i], player | flips[i] | bit, -INFINITY, -alpha, empties - 1);
+            restoreEmpty(square);
+            if ( aborted ) {
+                break;
+            }
+            if ( value > alpha ) {
+                alpha = value;
+                best = square;
+            }
+        }
+
+        score = alpha;
+        exact = !aborted;
+        return best;
+    }
+
+    /**
+     * 直前の solve で求めた最善手の石差を返す。
+     * 手番側から見た値で、完全に読み切れなかった場合は、読み切れた手の中での値になる。
+     * @return 石差
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * 直前の solve で、全てのルートの手を読み切れたかどうかを返す
+     * @return 読み切れたかどうか
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * 直前の solve で調べたノード数を返す
+     * @return ノード数
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * アルファベータ法で、終局時の石差を求める
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @param alpha 下限
+     * @param beta 上限
+     * @param empties 残りの空きマス数
+     * @return 手番側から見た石差
+     */
+    private int search(long player, long opponent, int alpha, int beta, int empties) {
+
+        if ( (++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && shouldAbort() ) {
+            aborted = true;
+        }
+        if ( aborted ) {
+            return 0;
+        }
+
+        if ( empties == 0 ) {
+            return Long.bitCount(player) - Long.bitCount(opponent);
+        }
+        if ( empties == 1 ) {
+            return searchLastMove(player, opponent, next[HEAD]);
+        }
+
+        int best = -INFINITY;
+
+        if ( empties > FASTEST_FIRST_EMPTIES ) {
+
+            // 置換表に結果があれば、探索の範囲を狭める
+            int index = -1;
+            int hashMove = NO_MOVE;
+            int alphaOrig = alpha;
+            int betaOrig = beta;
+            if ( empties >= TABLE_EMPTIES ) {
+                index = getTableIndex(player, opponent);
+                int data = tableDatas[index];
+                if ( data != 0 && tablePlayers[index] == player && tableOpponents[index] == opponent ) {
+                    int lower = getLower(data);
+                    int upper = getUpper(data);
+                    if ( lower >= beta ) {
+                        return lower;
+                    }
+                    if ( upper <= alpha || lower == upper ) {
+                        return upper;
+                    }
+                    alpha = Math.max(alpha, lower);
+                    beta = Math.min(beta, upper);
+                    hashMove = getMove(data);
+                }
+            }
+
+            int count = sortMoves(player, opponent, empties);
+            int[] squares = moveSquares[empties];
+            long[] flips = moveFlips[empties];
+            if ( hashMove != NO_MOVE ) {
+                moveToFront(empties, count, hashMove);
+            }
+
+            int bestMove = NO_MOVE;
+            for ( int i=0; i<count; i++ ) {
+                int square = squares[i];
+                long nextPlayer = opponent & ~flips[i];
+                long nextOpponent = player | flips[i] | (1L << square);
+                removeEmpty(square);
+                int value;
+                if ( i == 0 ) {
+                    value = -search(nextPlayer, nextOpponent, -beta, -alpha, empties - 1);
+                } else {
+                    // 2番目以降の手は、最初の手より良くならないことを狭い範囲で確かめる
+                    value = -search(nextPlayer, nextOpponent, -alpha - 1, -alpha, empties - 1);
+                    if ( alpha < value && value < beta ) {
+                        value = -search(nextPlayer, nextOpponent, -beta, -value, empties - 1);
+                    }
+                }
+                restoreEmpty(square);
+                if ( aborted ) {
+                    return 0;
+                }
+                if ( value > best ) {
+                    best = value;
+                    bestMove = square;
+                    if ( value > alpha ) {
+                        alpha = value;
+                        if ( alpha >= beta ) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if ( index >= 0 && best != -INFINITY ) {
+                int lower = (best > alphaOrig) ? best : -INFINITY;
+                int upper = (best < betaOrig) ? best : INFINITY;
+                tablePlayers[index] = player;
+                tableOpponents[index] = opponent;
+                tableDatas[index] = toData(lower, upper, bestMove);
+            }
+
+        } else {
+
+            // 空きマスが奇数個の象限を先に、偶数個の象限を後に調べる
+            for ( int odd=1; odd>=0; odd-- ) {
+                for ( int square = next[HEAD]; square != TAIL; square = next[square] ) {
+                    if ( ((parity & QUADRANT[square]) != 0) != (odd == 1) ) {
+                        continue;
+                    }
+                    long flips = BitBoard.getFlips(player, opponent, square);
+                    if ( flips == 0 ) {
+                        continue;
+                    }
+                    removeEmpty(square);
+                    int value = -search(opponent & ~flips, player | flips | (1L << square),
+                            -beta, -alpha, empties - 1);
+                    restoreEmpty(square);
+                    if ( value > best ) {
+                        best = value;
+                        if ( value > alpha ) {
+                            alpha = value;
+                            if ( alpha >= beta ) {
+                                return best;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if ( best == -INFINITY ) {
+            // 置ける場所が無い
+            if ( BitBoard.getMobility(opponent, player) == 0 ) {
+                return Long.bitCount(player) - Long.bitCount(opponent);
+            }
+            return -search(opponent, player, -beta, -alpha, empties);
+        }
+
+        return aborted ? 0 : best;
+    }
+
+    /**
+     * 残りの空きマスが1つの局面の石差を、直接計算して返す
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @param square 最後の空きマス
+     * @return 手番側から見た石差
+     */
+    private int searchLastMove(long player, long opponent, int square) {
+
+        nodes++;
+        long bit = 1L << square;
+
+        long flips = BitBoard.getFlips(player, opponent, square);
+        if ( flips != 0 ) {
+            return Long.bitCount(player | flips | bit) - Long.bitCount(opponent & ~flips);
+        }
+
+        flips = BitBoard.getFlips(opponent, player, square);
+        if ( flips != 0 ) {
+            return Long.bitCount(player & ~flips) - Long.bitCount(opponent | flips | bit);
+        }
+
+        return Long.bitCount(player) - Long.bitCount(opponent);
+    }
+
+    /**
+     * 着手可能な手を集めて、相手の着手可能数が少ない順（同じなら、奇数個の象限の手が先）に並べ替える。
+     * 結果は、残りの空きマス数に対応する作業領域に格納される。
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @param empties 残りの空きマス数
+     * @return 着手可能な手の数
+     */
+    private int sortMoves(long player, long opponent, int empties) {
+
+        int[] squares = moveSquares[empties];
+        long[] flipsList = moveFlips[empties];
+        int[] keys = moveKeys[empties];
+        int count = 0;
+
+        for ( int square = next[HEAD]; square != TAIL; square = next[square] ) {
+            long flips = BitBoard.getFlips(player, opponent, square);
+            if ( flips == 0 ) {
+                continue;
+            }
+            long nextPlayer = player | flips | (1L << square);
+            long nextOpponent = opponent & ~flips;
+            int key = Long.bitCount(BitBoard.getMobility(nextOpponent, nextPlayer)) * 2
+                    + (((parity & QUADRANT[square]) != 0) ? 0 : 1);
+
+            // 挿入ソート
+            int i = count++;
+            while ( i > 0 && keys[i - 1] > key ) {
+                squares[i] = squares[i - 1];
+                flipsList[i] = flipsList[i - 1];
+                keys[i] = keys[i - 1];
+                i--;
+            }
+            squares[i] = square;
+            flipsList[i] = flips;
+            keys[i] = key;
+        }
+
+        return count;
+    }
+
+    /**
+     * 並べ替えた手のうち、指定されたマス目の手を先頭に移す
+     * @param empties 残りの空きマス数
+     * @param count 手の数
+     * @param square マス目
+     */
+    private void moveToFront(int empties, int count, int square) {
+
+        int[] squares = moveSquares[empties];
+        long[] flipsList = moveFlips[empties];
+        for ( int i=1; i<count; i++ ) {
+            if ( squares[i] == square ) {
+                long flips = flipsList[i];
+                System.arraycopy(squares, 0, squares, 1, i);
+                System.arraycopy(flipsList, 0, flipsList, 1, i);
+                squares[0] = square;
+                flipsList[0] = flips;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 局面に対応する、置換表のインデックスを返す
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @return インデックス
+     */
+    private static int getTableIndex(long player, long opponent) {
+        long hash = player * 0x9e3779b97f4a7c15L ^ opponent * 0xc2b2ae3d27d4eb4fL;
+        return (int)(hash >>> 48) & (TABLE_SIZE - 1);
+    }
+
+    /**
+     * 下限・上限の石差と最善手を、置換表のデータに詰め込む
+     * @param lower 下限
+     * @param upper 上限
+     * @param move 最善手
+     * @return データ（0にはならない）
+     */
+    private static int toData(int lower, int upper, int move) {
+        return ((lower + INFINITY) & 0xff) | (((upper + INFINITY) & 0xff) << 8) | ((move + 1) << 16);
+    }
+
+    private static int getLower(int data) {
+        return (data & 0xff) - INFINITY;
+    }
+
+    private static int getUpper(int data) {
+        return ((data >>> 8) & 0xff) - INFINITY;
+    }
+
+    private static int getMove(int data) {
+        return (data >>> 16) - 1;
+    }
+
+    /**
+     * 空きマスのリストから、マス目を取り除く
+     * @param square マス目
+     */
+    private void removeEmpty(int square) {
+        next[prev[square]] = next[square];
+        prev[next[square]] = prev[square];
+        parity ^= QUADRANT[square];
+    }
+
+    /**
+     * 取り除いたマス目を、空きマスのリストの元の位置に戻す
+     * @param square マス目
+     */
+    private void restoreEmpty(int square) {
+        next[prev[square]] = square;
+        prev[next[square]] = square;
+        parity ^= QUADRANT[square];
+    }
+
+    /**
+     * 探索を中断すべきかどうか（時間切れか、スレッドが割り込まれたか）を返す
+     * @return 中断すべきかどうか
+     */
+    private boolean shouldAbort() {
+        if ( Thread.currentThread().isInterrupted() ) {
+            return true;
+        }
+        return deadline > 0 && System.currentTimeMillis() >= deadline;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 探索中の盤面と同期して差分更新される、評価関数の状態
+ * @author ucchy
+ */
+public interface EvaluationState {
+
+    /**
+     * 盤面から状態を作り直す
+     * @param board 盤面
+     */
+    public void reset(GameBoard board);
+
+    /**
+     * 着手を反映する。GameBoard#applyMove の直後に呼び出す。
+     * @param square 置いたマス目のビット位置
+     * @param flips 裏返された石のマスク
+     * @param piece 置いた石
+     */
+    public void applyMove(int square, long flips, Piece piece);
+
+    /**
+     * 着手の取り消しを反映する。GameBoard#undoMove の直後に呼び出す。
+     * @param square 置いたマス目のビット位置
+     * @param flips 裏返された石のマスク
+     * @param piece 置いた石
+     */
+    public void undoMove(int square, long flips, Piece piece);
+
+    /**
+     * 現在の状態から、盤面の評価値を返す
+     * @param board 状態と同期している盤面
+     * @param piece どちらの手番から見た評価値か
+     * @return 評価値、大きいほど piece 側が有利
+     */
+    public int evaluate(GameBoard board, Piece piece);
+}
@@ -0,0 +1,19 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+/**
+ * 着手・取り消しに合わせて差分更新できる状態を持つ評価関数
+ * @author ucchy
+ */
+public interface IncrementalEvaluator extends BoardEvaluator {
+
+    /**
+     * 差分更新用の状態を新しく作成する。状態は、1つのスレッドの探索の中だけで使う。
+     * @return 状態
+     */
+    public EvaluationState createState();
+}
@@ -0,0 +1,181 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.BitBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 探索で調べる手の順番を決める、手の並べ替え器。<br/>
+ * 置換表の最善手を最初に、次にキラー手（同じ深さでカットを起こした手）を調べ、
+ * 残りは、ヒストリー（カットを起こした回数を深さで重み付けしたもの）と、
+ * 着手後の相手の着手可能数の少なさ、マス目の優先度を合わせた値の大きい順に調べる。<br/>
+ * 使う手法は、コンストラクタの features で選べる。1つのインスタンスは、1つのスレッドの探索の中だけで使う。
+ * @author ucchy
+ */
+public class MoveOrderer {
+
+    /** 置換表の最善手だけを先頭にし、残りはビット位置の順に調べる */
+    public static final int NONE = 0;
+
+    /** キラー手を使う */
+    public static final int KILLERS = 1;
+
+    /** ヒストリーを使う */
+    public static final int HISTORY = 2;
+
+    /** 相手の着手可能数の少ない手を優先する */
+    public static final int MOBILITY = 4;
+
+    /** 全ての手法を使う */
+    public static final int ALL = KILLERS | HISTORY | MOBILITY;
+
+    /** 記録する手数の上限（パスを含む） */
+    private static final int MAX_PLY = 128;
+
+    /** 1つの局面の合法手の数の上限 */
+    private static final int MAX_MOVES = 64;
+
+    /** 残りの深さがこれ以上のときだけ、相手の着手可能数を調べる */
+    private static final int MOBILITY_DEPTH = 4;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    private static final int MOBILITY_WEIGHT = 1 << 12;
+    private static final int HISTORY_LIMIT = 1 << 11;
+
+    /** マス目の優先度（隅を優先し、隅の隣を後回しにする） */
+    private static final int[] SQUARE_SCORES = new int[64];
+
+    static {
+        int[][] priority = {
+            { 8, 1, 6, 5, 5, 6, 1, 8},
+            { 1, 0, 3, 3, 3, 3, 0, 1},
+            { 6, 3, 4, 4, 4, 4, 3, 6},
+            { 5, 3, 4, 4, 4, 4, 3, 5},
+            { 5, 3, 4, 4, 4, 4, 3, 5},
+            { 6, 3, 4, 4, 4, 4, 3, 6},
+            { 1, 0, 3, 3, 3, 3, 0, 1},
+            { 8, 1, 6, 5, 5, 6, 1, 8},
+        };
+        for ( int square=0; square<64; square++ ) {
+            SQUARE_SCORES[square] = priority[square / 8][square % 8];
+        }
+    }
+
+    private int features;
+
+    private int[][] killers = new int[MAX_PLY][2];
+    private int[][] history = new int[2][64];
+
+    // 手数ごとの、並べ替えた手と評価値の作業領域
+    private int[][] moveLists = new int[MAX_PLY][MAX_MOVES];
+    private int[][] scoreLists = new int[MAX_PLY][MAX_MOVES];
+
+    /**
+     * コンストラクタ
+     * @param features 使う手法（KILLERS、HISTORY、MOBILITY の論理和）
+     */
+    public MoveOrderer(int features) {
+        this.features = features;
+        newSearch();
+    }
+
+    /**
+     * 新しい探索の開始を通知する。キラー手を消去し、ヒストリーを半分に減らす。
+     */
+    public void newSearch() {
+        for ( int[] slots : killers ) {
+            slots[0] = TranspositionTable.NO_MOVE;
+            slots[1] = TranspositionTable.NO_MOVE;
+        }
+        for ( int[] scores : history ) {
+            for ( int i=0; i<scores.length; i++ ) {
+                scores[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * 合法手を、調べる順に並べて返す
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @param piece 手番
+     * @param moves 合法手のマスク
+     * @param hashMove 置換表の最善手、無い場合は TranspositionTable.NO_MOVE
+     * @param ply ルートからの手数
+     * @param depth 残りの探索深度
+     * @return 並べた手のビット位置（先頭から Long.bitCount(moves) 個が有効）。次に同じ手数で呼び出すまで有効。
+     */
+    public int[] order(long player, long opponent, Piece piece, long moves, int hashMove, int ply, int depth) {
+
+        int[] list = moveLists[ply];
+        int[] scores = scoreLists[ply];
+        int[] killer = killers[ply];
+        int[] historyScores = history[(piece == Piece.BLACK) ? 0 : 1];
+        boolean useMobility = (features & MOBILITY) != 0 && depth >= MOBILITY_DEPTH;
+
+        int count = 0;
+        while ( moves != 0 ) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+
+            int score;
+            if ( square == hashMove ) {
+                score = HASH_MOVE_SCORE;
+            } else if ( (features & KILLERS) != 0 && (square == killer[0] || square == killer[1]) ) {
+                score = (square == killer[0]) ? KILLER_SCORE + 1 : KILLER_SCORE;
+            } else if ( features == NONE ) {
+                score = -count;
+            } else {
+                score = SQUARE_SCORES[square];
+                if ( (features & HISTORY) != 0 ) {
+                    score += historyScores[square] << 4;
+                }
+                if ( useMobility ) {
+                    long flips = BitBoard.getFlips(player, opponent, square);
+                    long mobility = BitBoard.getMobility(opponent & ~flips, player | flips | (1L << square));
+                    score -= Long.bitCount(mobility) * MOBILITY_WEIGHT;
+                }
+            }
+
+            // 挿入ソート（評価値の大きい順）
+            int i = count++;
+            while ( i > 0 && scores[i - 1] < score ) {
+                list[i] = list[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            list[i] = square;
+            scores[i] = score;
+        }
+
+        return list;
+    }
+
+    /**
+     * ベータカットを起こした手を記録する
+     * @param piece 手番
+     * @param square カットを起こした手
+     * @param ply ルートからの手数
+     * @param depth 残りの探索深度
+     */
+    public void recordCutoff(Piece piece, int square, int ply, int depth) {
+
+        if ( (features & KILLERS) != 0 ) {
+            int[] killer = killers[ply];
+            if ( killer[0] != square ) {
+                killer[1] = killer[0];
+                killer[0] = square;
+            }
+        }
+
+        if ( (features & HISTORY) != 0 ) {
+            int[] scores = history[(piece == Piece.BLACK) ? 0 : 1];
+            scores[square] = Math.min(scores[square] + depth * depth, HISTORY_LIMIT);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.bitbucket.ucchy.reversi.game.BoardSymmetry;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 定石ブック。<br/>
+ * 局面は、BoardSymmetry の正規形に揃えて記録するので、回転・反転した局面は1つのエントリを共有する。
+ * ファイルはメモリマップで読み込み、複数のスレッドから同時に参照できる。<br/>
+ * ファイル形式（ビッグエンディアン）：<br/>
+ * ヘッダ … マジックナンバー(int)、バージョン(int)、エントリ数(int)<br/>
+ * エントリ … 正規形のキー(long)、正規形での最善手のビット位置(byte)、探索深度(byte)。キーの昇順に並ぶ。
+ * @author ucchy
+ */
+public class OpeningBook {
+
+    /** プラグインのデータフォルダに置く、定石ブックのファイル名 */
+    public static final String FILE_NAME = "book.bin";
+
+    private static final int MAGIC = 0x524c4f42;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 10;
+
+    private ByteBuffer buffer;
+    private int count;
+
+    /**
+     * コンストラクタ
+     * @param buffer ファイルの内容
+     * @param count エントリ数
+     */
+    private OpeningBook(ByteBuffer buffer, int count) {
+        this.buffer = buffer;
+        this.count = count;
+    }
+
+    /**
+     * ファイルをメモリマップで読み込む
+     * @param file ファイル
+     * @return 定石ブック
+     * @throws IOException ファイルが読めないか、形式が正しくない場合
+     */
+    public static OpeningBook load(File file) throws IOException {
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if ( size < HEADER_SIZE ) {
+                throw new IOException("Opening book is too short : " + file.getName());
+            }
+
+            // マップしたバッファは、チャネルを閉じた後も有効
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if ( buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ) {
+                throw new IOException("Unknown opening book format : " + file.getName());
+            }
+            int count = buffer.getInt(8);
+            if ( count < 0 || size != HEADER_SIZE + (long)count * ENTRY_SIZE ) {
+                throw new IOException("Opening book is broken : " + file.getName());
+            }
+            return new OpeningBook(buffer, count);
+
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 定石ブックをファイルに書き出す
+     * @param file ファイル
+     * @param keys 正規形のキー、昇順に並んでいること
+     * @param moves 正規形での最善手のビット位置
+     * @param depths 探索深度
+     * @param count エントリ数
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void write(File file, long[] keys, int[] moves, int[] depths, int count)
+            throws IOException {
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            for ( int i=0; i<count; i++ ) {
+                out.writeLong(keys[i]);
+                out.writeByte(moves[i]);
+                out.writeByte(Math.min(depths[i], 127));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 定石ブックに載っている手を返す
+     * @param board 盤面
+     * @param piece 手番
+     * @return 次に置く場所のビット位置（y * 8 + x）、載っていない場合は-1
+     */
+    public int getMove(GameBoard board, Piece piece) {
+
+        long black = board.getMaskOf(Piece.BLACK);
+        long white = board.getMaskOf(Piece.WHITE);
+
+        int symmetry = BoardSymmetry.getCanonicalSymmetry(black, white);
+        long key = BoardSymmetry.getKey(black, white, piece, symmetry);
+
+        int index = find(key);
+        if ( index < 0 ) {
+            return -1;
+        }
+
+        int move = buffer.get(HEADER_SIZE + index * ENTRY_SIZE + 8);
+        int square = BoardSymmetry.transformSquare(move, BoardSymmetry.inverse(symmetry));
+
+        // キーの衝突に備えて、置ける場所かどうかを確認しておく
+        if ( ((board.legalMoves(piece) >>> square) & 1) == 0 ) {
+            return -1;
+        }
+        return square;
+    }
+
+    /**
+     * エントリ数を返す
+     * @return エントリ数
+     */
+    public int getEntryCount() {
+        return count;
+    }
+
+    /**
+     * 二分探索でエントリを探す
+     * @param key 正規形のキー
+     * @return エントリの番号、見つからない場合は-1
+     */
+    private int find(long key) {
+        int low = 0;
+        int high = count - 1;
+        while ( low <= high ) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong(HEADER_SIZE + mid * ENTRY_SIZE);
+            if ( value < key ) {
+                low = mid + 1;
+            } else if ( value > key ) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
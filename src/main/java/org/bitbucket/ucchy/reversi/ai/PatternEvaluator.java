@@ -0,0 +1,337 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.bitbucket.ucchy.reversi.game.BitBoard;
+import org.bitbucket.ucchy.reversi.game.BoardSymmetry;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * パターンによる評価関数。<br/>
+ * 辺（Xを含む10マス）、隅（3x3の9マス）、対角線（8マス）の各パターンについて、
+ * マス目の状態（空:0、黒:1、白:2）を3進数のインデックスにして、あらかじめ計算した重みの表を引く。
+ * これに、着手可能数の差と、空きマスに接している石（開放度）の差を加えたものを評価値とする。<br/>
+ * 重みの表は、確定石・隅・X打ち・C打ちの考え方から、クラスのロード時に生成する。
+ * パターンのインデックスは、EvaluationState を使うと着手・取り消しのたびに差分更新できる。
+ * @author ucchy
+ */
+public class PatternEvaluator implements IncrementalEvaluator {
+
+    /** 着手可能数1つあたりの評価値 */
+    private static final int MOBILITY_WEIGHT = 8;
+
+    /** 空きマスに接している石1つあたりの評価値（少ないほど良い） */
+    private static final int FRONTIER_WEIGHT = 3;
+
+    private static final int CORNER_WEIGHT = 25;
+    private static final int STABLE_WEIGHT = 6;
+    private static final int C_SQUARE_PENALTY = 8;
+    private static final int X_SQUARE_PENALTY = 10;
+
+    private static final int EDGE = 0;
+    private static final int CORNER = 1;
+    private static final int DIAGONAL = 2;
+
+    /** パターンの種類ごとの、左上を基準にしたマス目 */
+    private static final int[][] BASE_PATTERNS = {
+        { 0, 1, 2, 3, 4, 5, 6, 7, 9, 14 },
+        { 0, 1, 2, 8, 9, 10, 16, 17, 18 },
+        { 0, 9, 18, 27, 36, 45, 54, 63 },
+    };
+
+    /** パターンの種類ごとの、黒から見た重みの表 */
+    private static final int[][] WEIGHTS = new int[BASE_PATTERNS.length][];
+
+    /** 盤面上の各パターンの種類 */
+    private static final int[] PATTERN_TYPES;
+
+    /** 盤面上の各パターンのマス目 */
+    private static final int[][] PATTERN_SQUARES;
+
+    /** マス目ごとの、そのマス目を含むパターンの番号 */
+    private static final int[][] SQUARE_PATTERNS = new int[64][];
+
+    /** マス目ごとの、そのマス目のパターンのインデックスでの位の値 */
+    private static final int[][] SQUARE_POWERS = new int[64][];
+
+    static {
+        // 基準のパターンを8通りに回転・反転させ、重複を除いて盤面上のパターンを作る
+        ArrayList<Integer> types = new ArrayList<Integer>();
+        ArrayList<int[]> patterns = new ArrayList<int[]>();
+        for ( int type=0; type<BASE_PATTERNS.length; type++ ) {
+            HashSet<Long> masks = new HashSet<Long>();
+            for ( int symmetry=0; symmetry<BoardSymmetry.COUNT; symmetry++ ) {
+                int[] squares = new int[BASE_PATTERNS[type].length];
+                long mask = 0;
+                for ( int i=0; i<squares.length; i++ ) {
+                    squares[i] = BoardSymmetry.transformSquare(BASE_PATTERNS[type][i], symmetry);
+                    mask |= 1L << squares[i];
+                }
+                if ( masks.add(mask) ) {
+                    types.add(type);
+                    patterns.add(squares);
+                }
+            }
+        }
+        PATTERN_TYPES = new int[types.size()];
+        PATTERN_SQUARES = new int[patterns.size()][];
+        for ( int p=0; p<PATTERN_TYPES.length; p++ ) {
+            PATTERN_TYPES[p] = types.get(p);
+            PATTERN_SQUARES[p] = patterns.get(p);
+        }
+
+        // マス目からパターンへの対応表を作る
+        for ( int square=0; square<64; square++ ) {
+            ArrayList<int[]> list = new ArrayList<int[]>();
+            for ( int p=0; p<PATTERN_SQUARES.length; p++ ) {
+                int power = 1;
+                for ( int s : PATTERN_SQUARES[p] ) {
+                    if ( s == square ) {
+                        list.add(new int[] {p, power});
+                    }
+                    power *= 3;
+                }
+            }
+            SQUARE_PATTERNS[square] = new int[list.size()];
+            SQUARE_POWERS[square] = new int[list.size()];
+            for ( int i=0; i<list.size(); i++ ) {
+                SQUARE_PATTERNS[square][i] = list.get(i)[0];
+                SQUARE_POWERS[square][i] = list.get(i)[1];
+            }
+        }
+
+        // 重みの表を作る
+        for ( int type=0; type<BASE_PATTERNS.length; type++ ) {
+            int length = BASE_PATTERNS[type].length;
+            int size = 1;
+            for ( int i=0; i<length; i++ ) {
+                size *= 3;
+            }
+            WEIGHTS[type] = new int[size];
+            int[] cells = new int[length];
+            for ( int index=0; index<size; index++ ) {
+                int value = index;
+                for ( int i=0; i<length; i++ ) {
+                    cells[i] = value % 3;
+                    value /= 3;
+                }
+                WEIGHTS[type][index] = getWeight(type, cells, 1) - getWeight(type, cells, 2);
+            }
+        }
+    }
+
+    /**
+     * @see org.bitbucket.ucchy.reversi.ai.BoardEvaluator#evaluate(org.bitbucket.ucchy.reversi.game.GameBoard, org.bitbucket.ucchy.reversi.game.Piece)
+     */
+    @Override
+    public int evaluate(GameBoard board, Piece piece) {
+        int[] indices = new int[PATTERN_SQUARES.length];
+        computeIndices(board, indices);
+        return evaluate(indices, board, piece);
+    }
+
+    /**
+     * @see org.bitbucket.ucchy.reversi.ai.IncrementalEvaluator#createState()
+     */
+    @Override
+    public EvaluationState createState() {
+        return new PatternState();
+    }
+
+    /**
+     * パターンのインデックスと盤面から、評価値を求める
+     * @param indices パターンのインデックス
+     * @param board 盤面
+     * @param piece どちらの手番から見た評価値か
+     * @return 評価値
+     */
+    private static int evaluate(int[] indices, GameBoard board, Piece piece) {
+
+        int total = 0;
+        for ( int p=0; p<indices.length; p++ ) {
+            total += WEIGHTS[PATTERN_TYPES[p]][indices[p]];
+        }
+        if ( piece == Piece.WHITE ) {
+            total = -total;
+        }
+
+        long player = board.getMaskOf(piece);
+        long opponent = board.getMaskOf(piece.getReverse());
+        long empty = ~(player | opponent);
+
+        int mobility = Long.bitCount(BitBoard.getMobility(player, opponent))
+                - Long.bitCount(BitBoard.getMobility(opponent, player));
+        total += MOBILITY_WEIGHT * mobility;
+
+        long frontier = 0;
+        for ( int dir=0; dir<BitBoard.DIRECTIONS; dir++ ) {
+            frontier |= BitBoard.shift(empty, dir);
+        }
+        total -= FRONTIER_WEIGHT * (Long.bitCount(player & frontier) - Long.bitCount(opponent & frontier));
+
+        return total;
+    }
+
+    /**
+     * 盤面から、全てのパターンのインデックスを計算する
+     * @param board 盤面
+     * @param indices インデックスを格納する配列
+     */
+    private static void computeIndices(GameBoard board, int[] indices) {
+        long black = board.getMaskOf(Piece.BLACK);
+        long white = board.getMaskOf(Piece.WHITE);
+        for ( int p=0; p<PATTERN_SQUARES.length; p++ ) {
+            int index = 0;
+            int[] squares = PATTERN_SQUARES[p];
+            for ( int i=squares.length-1; i>=0; i-- ) {
+                long bit = 1L << squares[i];
+                index = index * 3 + (((black & bit) != 0) ? 1 : ((white & bit) != 0) ? 2 : 0);
+            }
+            indices[p] = index;
+        }
+    }
+
+    /**
+     * パターンの状態に対する、指定した色の石の価値を求める
+     * @param type パターンの種類
+     * @param cells マス目の状態（空:0、黒:1、白:2）
+     * @param color 石の色（黒:1、白:2）
+     * @return 価値
+     */
+    private static int getWeight(int type, int[] cells, int color) {
+
+        switch ( type ) {
+        case EDGE:
+            // 隅、辺の確定石、空き隅の隣のCとX
+            int value = 0;
+            if ( cells[0] == color ) value += CORNER_WEIGHT;
+            if ( cells[7] == color ) value += CORNER_WEIGHT;
+            value += STABLE_WEIGHT * getStableCount(cells, 8, color);
+            if ( cells[1] == color && cells[0] == 0 ) value -= C_SQUARE_PENALTY;
+            if ( cells[6] == color && cells[7] == 0 ) value -= C_SQUARE_PENALTY;
+            if ( cells[8] == color && cells[0] == 0 ) value -= X_SQUARE_PENALTY;
+            if ( cells[9] == color && cells[7] == 0 ) value -= X_SQUARE_PENALTY;
+            for ( int i=2; i<=5; i++ ) {
+                if ( cells[i] == color ) value++;
+            }
+            return value;
+
+        case CORNER:
+            // 自分の隅の周りに固まっている石
+            if ( cells[0] != color ) {
+                return 0;
+            }
+            int count = 0;
+            for ( int i=1; i<cells.length; i++ ) {
+                if ( cells[i] == color ) count++;
+            }
+            return 2 * count;
+
+        default:
+            // 対角線上の、隅から続く確定石
+            return 3 * getStableCount(cells, 8, color);
+        }
+    }
+
+    /**
+     * 両端の隅から続いている石の数（列が埋まっている場合は、その色の石の全数）を返す
+     * @param cells マス目の状態
+     * @param length 列の長さ
+     * @param color 石の色
+     * @return 石の数
+     */
+    private static int getStableCount(int[] cells, int length, int color) {
+
+        boolean filled = true;
+        int total = 0;
+        for ( int i=0; i<length; i++ ) {
+            if ( cells[i] == 0 ) filled = false;
+            if ( cells[i] == color ) total++;
+        }
+        if ( filled ) {
+            return total;
+        }
+
+        int count = 0;
+        for ( int i=0; i<length && cells[i] == color; i++ ) {
+            count++;
+        }
+        for ( int i=length-1; i>=0 && cells[i] == color; i-- ) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * パターンのインデックスを差分更新して保持する状態
+     */
+    private static class PatternState implements EvaluationState {
+
+        private int[] indices = new int[PATTERN_SQUARES.length];
+
+        /**
+         * @see org.bitbucket.ucchy.reversi.ai.EvaluationState#reset(org.bitbucket.ucchy.reversi.game.GameBoard)
+         */
+        @Override
+        public void reset(GameBoard board) {
+            computeIndices(board, indices);
+        }
+
+        /**
+         * @see org.bitbucket.ucchy.reversi.ai.EvaluationState#applyMove(int, long, org.bitbucket.ucchy.reversi.game.Piece)
+         */
+        @Override
+        public void applyMove(int square, long flips, Piece piece) {
+            // 黒は 0→1、白は 0→2。裏返しは、黒なら 2→1、白なら 1→2。
+            boolean isBlack = piece == Piece.BLACK;
+            add(square, isBlack ? 1 : 2);
+            int delta = isBlack ? -1 : 1;
+            while ( flips != 0 ) {
+                add(Long.numberOfTrailingZeros(flips), delta);
+                flips &= flips - 1;
+            }
+        }
+
+        /**
+         * @see org.bitbucket.ucchy.reversi.ai.EvaluationState#undoMove(int, long, org.bitbucket.ucchy.reversi.game.Piece)
+         */
+        @Override
+        public void undoMove(int square, long flips, Piece piece) {
+            boolean isBlack = piece == Piece.BLACK;
+            add(square, isBlack ? -1 : -2);
+            int delta = isBlack ? 1 : -1;
+            while ( flips != 0 ) {
+                add(Long.numberOfTrailingZeros(flips), delta);
+                flips &= flips - 1;
+            }
+        }
+
+        /**
+         * @see org.bitbucket.ucchy.reversi.ai.EvaluationState#evaluate(org.bitbucket.ucchy.reversi.game.GameBoard, org.bitbucket.ucchy.reversi.game.Piece)
+         */
+        @Override
+        public int evaluate(GameBoard board, Piece piece) {
+            return PatternEvaluator.evaluate(indices, board, piece);
+        }
+
+        /**
+         * マス目の状態の変化を、そのマス目を含むパターンのインデックスに反映する
+         * @param square マス目
+         * @param amount 状態の変化量
+         */
+        private void add(int square, int amount) {
+            int[] patterns = SQUARE_PATTERNS[square];
+            int[] powers = SQUARE_POWERS[square];
+            for ( int i=0; i<patterns.length; i++ ) {
+                indices[patterns[i]] += powers[i] * amount;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 相手の手番の間に、先読み（ポンダー）ができるAI
+ * @author ucchy
+ */
+public interface PonderingAI extends ReversiAI {
+
+    /**
+     * 相手の手番の間に、相手の予想手に対する自分の応手を探索しておく。
+     * 相手が予想手を打った場合は、次の getNext で探索結果をすぐに返す。<br/>
+     * 呼び出したスレッドが割り込まれた場合は、途中の結果を捨てて、すぐに終了する。
+     * @param board 盤面（変更されない）
+     * @param opponent 手番の相手側の石
+     */
+    public void ponder(GameBoard board, Piece opponent);
+}
@@ -0,0 +1,73 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * マス目ごとの重み付けテーブルによる評価関数
+ * @author ucchy
+ */
+public class PriorityEvaluator implements BoardEvaluator {
+
+    private static final int[][] PRIORITY = {
+        { 30,-12,  0, -1, -1,  0,-12, 30},
+        {-12,-15, -3, -3, -3, -3,-15,-12},
+        {  0, -3,  0, -1, -1,  0, -3,  0},
+        { -1, -3, -1, -1, -1, -1, -3, -1},
+        { -1, -3, -1, -1, -1, -1, -3, -1},
+        {  0, -3,  0, -1, -1,  0, -3,  0},
+        {-12,-15, -3, -3, -3, -3,-15,-12},
+        { 30,-12,  0, -1, -1,  0,-12, 30},
+    };
+
+    /** ビット位置ごとの重み */
+    private int[] weights;
+
+    /**
+     * コンストラクタ
+     */
+    public PriorityEvaluator() {
+        this(PRIORITY);
+    }
+
+    /**
+     * コンストラクタ
+     * @param priority 8x8の重み付けテーブル、priority[y][x] の形式
+     */
+    public PriorityEvaluator(int[][] priority) {
+        weights = new int[64];
+        for ( int y=0; y<8; y++ ) {
+            for ( int x=0; x<8; x++ ) {
+                weights[y * 8 + x] = priority[y][x];
+            }
+        }
+    }
+
+    /**
+     * @see org.bitbucket.ucchy.reversi.ai.BoardEvaluator#evaluate(org.bitbucket.ucchy.reversi.game.GameBoard, org.bitbucket.ucchy.reversi.game.Piece)
+     */
+    @Override
+    public int evaluate(GameBoard board, Piece piece) {
+
+        int total = 0;
+
+        long mine = board.getMaskOf(piece);
+        while ( mine != 0 ) {
+            total += weights[Long.numberOfTrailingZeros(mine)];
+            mine &= mine - 1;
+        }
+
+        long theirs = board.getMaskOf(piece.getReverse());
+        while ( theirs != 0 ) {
+            total -= weights[Long.numberOfTrailingZeros(theirs)];
+            theirs &= theirs - 1;
+        }
+
+        return total;
+    }
+}
@@ -20,4 +20,14 @@ public interface ReversiAI {
 
     /** 次に置く場所を返す */
     public int[] getNext(GameBoard board, Piece piece);
+
+    /**
+     * 思考の期限を指定して、次に置く場所を返す。
+     * 期限を過ぎた場合は、それまでに見つかった最善の手を返す。
+     * @param board 盤面
+     * @param piece 手番
+     * @param deadline 期限（System.currentTimeMillis() の値）、0以下ならAIごとの既定の時間制限に従う
+     * @return 次に置く場所 { x, y }
+     */
+    public int[] getNext(GameBoard board, Piece piece, long deadline);
 }
@@ -0,0 +1,273 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+import org.bitbucket.ucchy.reversi.game.SingleGameDifficulty;
+
+/**
+ * 探索で手を決めるAI。強さは AIProfile の探索深度、思考時間とノード数の上限、評価値の乱数で決まる。<br/>
+ * 相手の手番の間に ponder を呼び出すと、相手の予想手に対する応手を探索しておき、
+ * 相手が予想手を打った場合は、getNext ですぐに返す。予想が外れても、置換表に残った探索結果は再利用される。<br/>
+ * getNext と ponder は、同時に1つのスレッドからしか実行されない（もう一方が終わるまで待つ）。
+ * @author ucchy
+ */
+public class ReversiAISearch implements PonderingAI {
+
+    /** 探索深度の初期値 */
+    public static final int DEFAULT_DEPTH = 8;
+
+    /** 1手あたりの思考時間の初期値（ミリ秒） */
+    public static final long DEFAULT_TIME_LIMIT = 1500;
+
+    /** 先読みで応手を探索しておく、相手の予想手の数 */
+    private static final int PONDER_MOVES = 3;
+
+    /** 相手の予想手を求めるときに、探索深度から減らす深さ */
+    private static final int PONDER_REDUCTION = 2;
+
+    /** 期限までの時間のうち、読み切りに使う割合（4分の何か） */
+    private static final int SOLVER_QUARTERS = 3;
+
+    private String profileName;
+    private SingleGameDifficulty rank;
+    private int depth;
+    private long timeLimit;
+    private int endgameEmpties;
+    private SearchEngine engine;
+    private EndgameSolver solver;
+    private OpeningBook book;
+    private AIResultCache resultCache;
+    private long nodeCount;
+    private long thinkNodes;
+    private int thinkScore;
+    private int thinkDepth;
+
+    // 先読みで求めておいた、局面（自分の手番）のハッシュ値ごとの応手
+    private HashMap<Long, Integer> ponderMoves = new HashMap<Long, Integer>();
+    private MoveOrderer ponderOrderer = new MoveOrderer(MoveOrderer.MOBILITY);
+
+    /**
+     * コンストラクタ
+     * @param profile 探索の設定
+     * @param executor 並列探索に使うスレッドプール、使用しない場合はnull
+     */
+    public ReversiAISearch(AIProfile profile, ExecutorService executor) {
+        this.profileName = profile.getName();
+        this.rank = profile.getRank();
+        this.depth = profile.getDepth();
+        this.timeLimit = profile.getTimeLimit();
+        this.endgameEmpties = profile.getEndgameEmpties();
+        int tableSize = profile.getTableSize();
+        TranspositionTable table = (tableSize > 0) ? new TranspositionTable(tableSize) : null;
+        this.engine = new SearchEngine(profile.createEvaluator(), timeLimit, table, executor, profile.getThreads());
+        // 読み切りの置換表は大きいので、読み切らない場合は作らない
+        this.solver = (endgameEmpties > 0) ? new EndgameSolver(timeLimit) : null;
+        engine.setNodeLimit(profile.getNodeLimit());
+        engine.setEvaluationNoise(profile.getNoise());
+    }
+
+    /**
+     * 探索の前に参照する定石ブックを設定する
+     * @param book 定石ブック、使用しない場合はnull
+     */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * 探索の前に参照し、探索の結果を記録する、セッション間で共有のキャッシュを設定する。
+     * 評価値に乱数を加える場合は、毎回違う手を選べるように、キャッシュは使わない。
+     * @param resultCache 思考結果のキャッシュ、使用しない場合はnull
+     */
+    public void setResultCache(AIResultCache resultCache) {
+        this.resultCache = (engine.getEvaluationNoise() > 0) ? null : resultCache;
+    }
+
+    /**
+     * @see org.bitbucket.ucchy.reversi.ai.ReversiAI#getDifficulty()
+     */
+    @Override
+    public SingleGameDifficulty getDifficulty() {
+        return rank;
+    }
+
+    /**
+     * プロファイル名を返す
+     * @return プロファイル名
+     */
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * @see org.bitbucket.ucchy.reversi.ai.ReversiAI#getNext(org.bitbucket.ucchy.reversi.game.GameBoard, org.bitbucket.ucchy.reversi.game.Piece)
+     */
+    @Override
+    public int[] getNext(GameBoard board, Piece piece) {
+        return getNext(board, piece, 0);
+    }
+
+    /**
+     * 思考時間の上限と、指定された期限の早い方を期限として、次に置く場所を返す。
+     * 読み切りが期限までに1手も終わらなかった場合も、通常の探索の深さ1の結果は必ず返す。
+     * @see org.bitbucket.ucchy.reversi.ai.ReversiAI#getNext(org.bitbucket.ucchy.reversi.game.GameBoard, org.bitbucket.ucchy.reversi.game.Piece, long)
+     */
+    @Override
+    public synchronized int[] getNext(GameBoard board, Piece piece, long deadline) {
+
+        long limit = (timeLimit > 0) ? System.currentTimeMillis() + timeLimit : 0;
+        if ( deadline > 0 && (limit <= 0 || deadline < limit) ) {
+            limit = deadline;
+        }
+
+        int square = -1;
+        nodeCount = 0;
+        if ( book != null ) {
+            square = book.getMove(board, piece);
+        }
+        if ( square < 0 ) {
+            // 先読みで求めておいた応手があれば、それを使う
+            Integer pondered = ponderMoves.get(board.getHash(piece));
+            if ( pondered != null && ((board.legalMoves(piece) >>> pondered) & 1) != 0 ) {
+                square = pondered;
+            }
+        }
+        ponderMoves.clear();
+        if ( square < 0 && resultCache != null ) {
+            int[] cached = resultCache.get(board, piece, profileName);
+            if ( cached != null && cached[2] >= getRequiredDepth(board)
+                    && ((board.legalMoves(piece) >>> cached[0]) & 1) != 0 ) {
+                square = cached[0];
+            }
+        }
+        if ( square < 0 ) {
+            square = think(board, piece, limit);
+            nodeCount = thinkNodes;
+
+            // 期限や上限で途中までしか探索できなかった結果は、他のセッションに使わせない
+            if ( resultCache != null && square >= 0 && thinkDepth >= 0 ) {
+                resultCache.put(board, piece, profileName, square, thinkScore, thinkDepth);
+            }
+        }
+
+        int[] coordinates = new int[2];
+        if ( square >= 0 ) {
+            coordinates[0] = square % 8;
+            coordinates[1] = square / 8;
+        }
+        return coordinates;
+    }
+
+    /**
+     * 相手の予想手を求め、予想手の順に、それに対する応手を探索しておく。
+     * 応手の探索は getNext と同じ時間制限で行うので、予想が当たった場合は、getNext と同じ手が返る。
+     * @see org.bitbucket.ucchy.reversi.ai.PonderingAI#ponder(org.bitbucket.ucchy.reversi.game.GameBoard, org.bitbucket.ucchy.reversi.game.Piece)
+     */
+    @Override
+    public synchronized void ponder(GameBoard board, Piece opponent) {
+
+        ponderMoves.clear();
+        long moves = board.legalMoves(opponent);
+        if ( moves == 0 ) {
+            return;
+        }
+
+        // 相手の予想手を浅い探索で求め、残りの手は、こちらの着手可能数が少なくなる順に並べる
+        int expected = engine.search(board, opponent, Math.max(1, depth - PONDER_REDUCTION), 0);
+        if ( Thread.currentThread().isInterrupted() ) {
+            return;
+        }
+        Piece piece = opponent.getReverse();
+        int[] ordered = ponderOrderer.order(board.getMaskOf(opponent), board.getMaskOf(piece),
+                opponent, moves, expected, 0, SearchEngine.MAX_DEPTH);
+        int count = Math.min(Long.bitCount(moves), PONDER_MOVES);
+        int[] replies = new int[count];
+        System.arraycopy(ordered, 0, replies, 0, count);
+
+        GameBoard child = board.clone();
+        for ( int reply : replies ) {
+            long flips = child.applyMove(reply, opponent);
+            if ( child.legalMoves(piece) != 0 && (book == null || book.getMove(child, piece) < 0) ) {
+                int square = think(child, piece, (timeLimit > 0) ? System.currentTimeMillis() + timeLimit : 0);
+                if ( Thread.currentThread().isInterrupted() ) {
+                    // 中断された探索の結果は使わない
+                    return;
+                }
+                if ( square >= 0 ) {
+                    ponderMoves.put(child.getHash(piece), square);
+                    if ( resultCache != null && thinkDepth >= 0 ) {
+                        resultCache.put(child, piece, profileName, square, thinkScore, thinkDepth);
+                    }
+                }
+            }
+            child.undoMove(reply, opponent, flips);
+        }
+    }
+
+    /**
+     * 残りの空きマス数に応じて、読み切りか通常の探索で最善手を求める。
+     * 読み切りには期限までの時間の4分の3までを使い、読み切れなかった場合は、
+     * 途中までの結果は捨てて、残りの時間で通常の探索を行う。
+     * 最善手の評価値は thinkScore に、通常の探索と同じ尺度で記録する。
+     * 読み切れた場合か、プロファイルの探索深度まで完了した場合は、その深度を thinkDepth に記録し、
+     * 途中で打ち切られた場合は-1を記録する。
+     * @param board 盤面（変更されない）
+     * @param piece 手番
+     * @param limit 期限（System.currentTimeMillis() の値）、0以下なら無制限
+     * @return 最善手のビット位置、置ける場所が無い場合は-1
+     */
+    private int think(GameBoard board, Piece piece, long limit) {
+        int square = -1;
+        thinkNodes = 0;
+        thinkDepth = -1;
+        if ( solver != null && board.getEmptyCount() <= endgameEmpties ) {
+            long solveLimit = limit;
+            if ( limit > 0 ) {
+                long now = System.currentTimeMillis();
+                solveLimit = now + Math.max(limit - now, 0) * SOLVER_QUARTERS / 4;
+            }
+            int solved = solver.solve(board, piece, solveLimit);
+            thinkNodes += solver.getNodeCount();
+            if ( solved >= 0 && solver.isExact() ) {
+                square = solved;
+                thinkScore = solver.getScore() * SearchEngine.END_WEIGHT;
+                thinkDepth = AIResultCache.EXACT_DEPTH;
+            }
+        }
+        if ( square < 0 ) {
+            square = engine.search(board, piece, depth, limit);
+            thinkNodes += engine.getNodeCount();
+            thinkScore = engine.getBestScore();
+            if ( engine.getCompletedDepth() >= getRequiredDepth(board) ) {
+                thinkDepth = engine.getCompletedDepth();
+            }
+        }
+        return square;
+    }
+
+    /**
+     * 思考結果をキャッシュに記録したり、キャッシュから使ったりするのに必要な探索深度を返す。
+     * 空きマス数がプロファイルの探索深度より少ない場合は、空きマス数になる。
+     * @param board 盤面
+     * @return 探索深度
+     */
+    private int getRequiredDepth(GameBoard board) {
+        return Math.max(1, Math.min(Math.min(depth, SearchEngine.MAX_DEPTH), board.getEmptyCount()));
+    }
+
+    /**
+     * 直前の getNext で調べたノード数を返す
+     * @return ノード数
+     */
+    public long getNodeCount() {
+        return nodeCount;
+    }
+}
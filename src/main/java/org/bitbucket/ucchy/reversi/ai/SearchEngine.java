@@ -0,0 +1,600 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+import org.bitbucket.ucchy.reversi.game.ZobristHash;
+
+/**
+ * 反復深化つきのネガアルファ探索（アルファベータ法）を行う探索エンジン。<br/>
+ * 並列探索が有効な場合は、各反復で最初の手（前回の最善手）だけを単独で探索してアルファ値を確定させ、
+ * 残りのルートの手をスレッドプールのワーカーで分担して探索する。<br/>
+ * 1つのインスタンスは、同時に1つのスレッドからしか search を呼び出せない。<br/>
+ * search を呼び出したスレッドが割り込まれた場合は、探索深度にかかわらず探索を中断する。<br/>
+ * 各局面で調べる手の順番は、ワーカーごとの MoveOrderer が決める。
+ * @author ucchy
+ */
+public class SearchEngine {
+
+    /** 評価値の上限 */
+    public static final int INFINITY = 1000000;
+
+    /** 終局時の、石差1個あたりの評価値 */
+    public static final int END_WEIGHT = 1000;
+
+    /** 探索深度の上限 */
+    public static final int MAX_DEPTH = 60;
+
+    /** 時間切れを確認する間隔（ノード数、2のべき乗） */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private BoardEvaluator evaluator;
+    private long timeLimit;
+    private TranspositionTable table;
+    private ExecutorService executor;
+    private int threads;
+    private int moveOrdering;
+    private long nodeLimit;
+    private int evaluationNoise;
+
+    private Searcher[] searchers;
+
+    private volatile long deadline;
+    private volatile boolean canAbort;
+    private volatile boolean aborted;
+
+    private int completedDepth;
+    private int bestScore;
+
+    // 1回の反復の中で、ワーカー間で共有する最善手の情報（lock で保護する）
+    private final Object lock = new Object();
+    private int iterationAlpha;
+    private int iterationBestIndex;
+
+    /**
+     * コンストラクタ
+     * @param evaluator 評価関数
+     * @param timeLimit 1手あたりの思考時間の上限（ミリ秒）、0以下なら無制限
+     */
+    public SearchEngine(BoardEvaluator evaluator, long timeLimit) {
+        this(evaluator, timeLimit, null);
+    }
+
+    /**
+     * コンストラクタ
+     * @param evaluator 評価関数
+     * @param timeLimit 1手あたりの思考時間の上限（ミリ秒）、0以下なら無制限
+     * @param table 置換表、使用しない場合はnull
+     */
+    public SearchEngine(BoardEvaluator evaluator, long timeLimit, TranspositionTable table) {
+        this(evaluator, timeLimit, table, null, 1);
+    }
+
+    /**
+     * コンストラクタ
+     * @param evaluator 評価関数（複数スレッドから同時に呼び出される）
+     * @param timeLimit 1手あたりの思考時間の上限（ミリ秒）、0以下なら無制限
+     * @param table 置換表、使用しない場合はnull（ワーカー間で共有される）
+     * @param executor 並列探索に使うスレッドプール、使用しない場合はnull
+     * @param threads 1回の探索で使うスレッド数（呼び出し元のスレッドを含む）
+     */
+    public SearchEngine(BoardEvaluator evaluator, long timeLimit, TranspositionTable table,
+            ExecutorService executor, int threads) {
+        this.evaluator = evaluator;
+        this.timeLimit = timeLimit;
+        this.table = table;
+        this.executor = executor;
+        this.threads = (executor != null) ? Math.max(1, threads) : 1;
+        this.searchers = new Searcher[this.threads];
+        for ( int i=0; i<searchers.length; i++ ) {
+            searchers[i] = new Searcher();
+            if ( evaluator instanceof IncrementalEvaluator ) {
+                searchers[i].state = ((IncrementalEvaluator)evaluator).createState();
+            }
+        }
+        setMoveOrdering(MoveOrderer.ALL);
+    }
+
+    /**
+     * 手の並べ替えに使う手法を設定する。初期値は MoveOrderer.ALL。
+     * @param features 使う手法（MoveOrderer.KILLERS、HISTORY、MOBILITY の論理和）
+     */
+    public void setMoveOrdering(int features) {
+        this.moveOrdering = features;
+        for ( Searcher searcher : searchers ) {
+            searcher.orderer = new MoveOrderer(features);
+        }
+    }
+
+    /**
+     * 手の並べ替えに使う手法を返す
+     * @return 使う手法
+     */
+    public int getMoveOrdering() {
+        return moveOrdering;
+    }
+
+    /**
+     * 1回の探索で調べるノード数の上限を設定する。上限に達した場合は、期限を過ぎた場合と同じく探索を打ち切る。
+     * @param nodeLimit ノード数の上限、0以下なら無制限
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * 1回の探索で調べるノード数の上限を返す
+     * @return ノード数の上限
+     */
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    /**
+     * 末端の評価値に加える乱数の幅を設定する。-noise から noise までの一様乱数が加わり、手が読み違えやすくなる。
+     * 決着が付いた盤面の評価値には加えない。
+     * @param noise 乱数の幅、0以下なら加えない
+     */
+    public void setEvaluationNoise(int noise) {
+        this.evaluationNoise = Math.max(noise, 0);
+    }
+
+    /**
+     * 末端の評価値に加える乱数の幅を返す
+     * @return 乱数の幅
+     */
+    public int getEvaluationNoise() {
+        return evaluationNoise;
+    }
+
+    /**
+     * 最善手を探索して返す。探索深度1の探索だけは、時間制限にかかわらず必ず完了させる。
+     * @param board 盤面（変更されない）
+     * @param piece 手番
+     * @param maxDepth 探索深度の上限
+     * @return 最善手のビット位置（y * 8 + x）、置ける場所が無い場合は-1
+     */
+    public int search(GameBoard board, Piece piece, int maxDepth) {
+        return search(board, piece, maxDepth, (timeLimit > 0) ? System.currentTimeMillis() + timeLimit : 0);
+    }
+
+    /**
+     * 期限を指定して、最善手を探索して返す。期限を過ぎた場合は、それまでに見つかった最善手を返す。
+     * 探索深度1の探索だけは、期限にかかわらず必ず完了させる。
+     * @param board 盤面（変更されない）
+     * @param piece 手番
+     * @param maxDepth 探索深度の上限
+     * @param deadline 期限（System.currentTimeMillis() の値）、0以下なら無制限
+     * @return 最善手のビット位置（y * 8 + x）、置ける場所が無い場合は-1
+     */
+    public int search(GameBoard board, Piece piece, int maxDepth, long deadline) {
+
+        completedDepth = 0;
+        bestScore = 0;
+        aborted = false;
+        canAbort = false;
+        this.deadline = Math.max(deadline, 0);
+        for ( Searcher searcher : searchers ) {
+            searcher.nodes = 0;
+            searcher.cutoffs = 0;
+            searcher.firstMoveCutoffs = 0;
+        }
+
+        long moves = board.legalMoves(piece);
+        if ( moves == 0 ) {
+            return -1;
+        }
+
+        int[] rootMoves = new int[Long.bitCount(moves)];
+        if ( rootMoves.length == 1 ) {
+            return Long.numberOfTrailingZeros(moves);
+        }
+
+        // 探索中は、ワーカーごとに1枚の盤面を着手・取り消しして使い回す。渡された盤面は変更しない。
+        for ( Searcher searcher : searchers ) {
+            searcher.board = board.clone();
+            if ( searcher.state != null ) {
+                searcher.state.reset(searcher.board);
+            }
+        }
+        long hash = board.getHash(piece);
+        int hashMove = TranspositionTable.NO_MOVE;
+        if ( table != null ) {
+            table.newSearch();
+            long entry = table.probe(hash);
+            if ( entry != 0 ) {
+                hashMove = TranspositionTable.getMove(entry);
+            }
+        }
+        for ( Searcher searcher : searchers ) {
+            searcher.orderer.newSearch();
+        }
+        int empties = board.getEmptyCount();
+        int limit = Math.max(1, Math.min(Math.min(maxDepth, MAX_DEPTH), empties));
+
+        // ルートの手の最初の順番も、ワーカー0の並べ替え器で決める。以降は、反復ごとに最善手を先頭に移す。
+        int[] ordered = searchers[0].orderer.order(board.getMaskOf(piece), board.getMaskOf(piece.getReverse()),
+                piece, moves, hashMove, 0, limit);
+        System.arraycopy(ordered, 0, rootMoves, 0, rootMoves.length);
+
+        for ( int depth=1; depth<=limit; depth++ ) {
+
+            canAbort = depth > 1;
+
+            // 最初の手は単独で探索して、残りの手を探索するときのアルファ値を確定させる
+            int score = searchers[0].searchRoot(rootMoves[0], piece, depth, -INFINITY, hash);
+            if ( aborted ) {
+                break;
+            }
+
+            iterationAlpha = score;
+            iterationBestIndex = 0;
+            searchSiblings(rootMoves, piece, depth, hash);
+
+            if ( iterationBestIndex > 0 ) {
+                // 前回の最善手より良いと分かった手は、探索が途中でも採用し、次の反復で最初に調べる
+                int best = rootMoves[iterationBestIndex];
+                System.arraycopy(rootMoves, 0, rootMoves, 1, iterationBestIndex);
+                rootMoves[0] = best;
+            }
+
+            if ( aborted ) {
+                break;
+            }
+
+            completedDepth = depth;
+            bestScore = iterationAlpha;
+        }
+
+        for ( Searcher searcher : searchers ) {
+            searcher.board = null;
+        }
+
+        return rootMoves[0];
+    }
+
+    /**
+     * ルートの2番目以降の手を探索する。並列探索が有効なら、ワーカーで分担する。
+     * @param rootMoves ルートの手
+     * @param piece 手番
+     * @param depth 探索深度
+     * @param hash ルート局面のハッシュ値
+     */
+    private void searchSiblings(final int[] rootMoves, final Piece piece, final int depth, final long hash) {
+
+        final AtomicInteger next = new AtomicInteger(1);
+        int workers = Math.min(threads, rootMoves.length - 1);
+
+        ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+        for ( int i=1; i<workers; i++ ) {
+            final Searcher searcher = searchers[i];
+            try {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        searchSiblings(searcher, rootMoves, piece, depth, hash, next);
+                        return null;
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // スレッドプールが停止している場合は、呼び出し元のスレッドだけで探索する
+                break;
+            }
+        }
+
+        searchSiblings(searchers[0], rootMoves, piece, depth, hash, next);
+
+        // 割り込まれた場合も、ワーカーが盤面を使い終わるまでは待つ
+        boolean interrupted = false;
+        for ( Future<?> future : futures ) {
+            while ( true ) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    aborted = true;
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    aborted = true;
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * ルートの手を順に取り出して探索する、ワーカーの処理
+     * @param searcher 探索に使うワーカー
+     * @param rootMoves ルートの手
+     * @param piece 手番
+     * @param depth 探索深度
+     * @param hash ルート局面のハッシュ値
+     * @param next 次に探索する手のインデックス
+     */
+    private void searchSiblings(Searcher searcher, int[] rootMoves, Piece piece, int depth,
+            long hash, AtomicInteger next) {
+
+        int index;
+        while ( !aborted && (index = next.getAndIncrement()) < rootMoves.length ) {
+            int alpha;
+            synchronized ( lock ) {
+                alpha = iterationAlpha;
+            }
+            int score = searcher.searchRoot(rootMoves[index], piece, depth, alpha, hash);
+            if ( aborted ) {
+                return;
+            }
+            synchronized ( lock ) {
+                if ( score > iterationAlpha ) {
+                    iterationAlpha = score;
+                    iterationBestIndex = index;
+                }
+            }
+        }
+    }
+
+    /**
+     * 探索を中断すべきかどうか（時間切れか、ノード数の上限に達したか、スレッドが割り込まれたか）を返す
+     * @return 中断すべきかどうか
+     */
+    private boolean shouldAbort() {
+        if ( Thread.currentThread().isInterrupted() ) {
+            return true;
+        }
+        if ( !canAbort ) {
+            return false;
+        }
+        if ( nodeLimit > 0 && getNodeCount() >= nodeLimit ) {
+            return true;
+        }
+        return deadline > 0 && System.currentTimeMillis() >= deadline;
+    }
+
+    /**
+     * 決着が付いた盤面の評価値を返す
+     * @param board 盤面
+     * @param piece どちらの手番から見た評価値か
+     * @return 評価値
+     */
+    private static int getEndScore(GameBoard board, Piece piece) {
+        int diff = board.getCountOf(piece) - board.getCountOf(piece.getReverse());
+        return diff * END_WEIGHT;
+    }
+
+    /**
+     * 直前の探索で調べたノード数を返す
+     * @return ノード数
+     */
+    public long getNodeCount() {
+        long total = 0;
+        for ( Searcher searcher : searchers ) {
+            total += searcher.nodes;
+        }
+        return total;
+    }
+
+    /**
+     * 直前の探索で、ベータカットが発生したノード数を返す
+     * @return ベータカットの回数
+     */
+    public long getCutoffCount() {
+        long total = 0;
+        for ( Searcher searcher : searchers ) {
+            total += searcher.cutoffs;
+        }
+        return total;
+    }
+
+    /**
+     * 直前の探索で、最初に調べた手でベータカットが発生したノード数を返す。
+     * getCutoffCount に対する割合が高いほど、手の並べ替えがうまく働いている。
+     * @return 最初の手でのベータカットの回数
+     */
+    public long getFirstMoveCutoffCount() {
+        long total = 0;
+        for ( Searcher searcher : searchers ) {
+            total += searcher.firstMoveCutoffs;
+        }
+        return total;
+    }
+
+    /**
+     * 直前の探索で、最後まで完了した探索深度を返す
+     * @return 探索深度
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * 直前の探索で、最後まで完了した探索深度における最善手の評価値を返す
+     * @return 評価値
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * 1つのスレッドが使う、探索用の盤面と評価関数の状態、手の並べ替え器、統計情報
+     */
+    private class Searcher {
+
+        private GameBoard board;
+        private EvaluationState state;
+        private MoveOrderer orderer;
+        private long nodes;
+        private long cutoffs;
+        private long firstMoveCutoffs;
+
+        /**
+         * 盤面に着手し、評価関数の状態にも反映する
+         * @param square 着手するマス目のビット位置
+         * @param piece 置く石
+         * @return 裏返された石のマスク
+         */
+        private long applyMove(int square, Piece piece) {
+            long flips = board.applyMove(square, piece);
+            if ( state != null ) {
+                state.applyMove(square, flips, piece);
+            }
+            return flips;
+        }
+
+        /**
+         * 着手を取り消し、評価関数の状態にも反映する
+         * @param square 着手したマス目のビット位置
+         * @param piece 置いた石
+         * @param flips 裏返された石のマスク
+         */
+        private void undoMove(int square, Piece piece, long flips) {
+            board.undoMove(square, piece, flips);
+            if ( state != null ) {
+                state.undoMove(square, flips, piece);
+            }
+        }
+
+        /**
+         * ルートの手を1つ探索して、その評価値を返す
+         * @param square 着手するマス目のビット位置
+         * @param piece 手番
+         * @param depth 探索深度
+         * @param alpha 下限
+         * @param hash ルート局面のハッシュ値
+         * @return piece 側から見た評価値
+         */
+        private int searchRoot(int square, Piece piece, int depth, int alpha, long hash) {
+            long flips = applyMove(square, piece);
+            long childHash = board.getHash(piece.getReverse());
+            int score = -negamax(piece.getReverse(), depth - 1, -INFINITY, -alpha, false, childHash, 1);
+            undoMove(square, piece, flips);
+            return score;
+        }
+
+        /**
+         * ネガアルファ法で評価値を求める
+         * @param piece 次の手番
+         * @param depth 残りの探索深度
+         * @param alpha 下限
+         * @param beta 上限
+         * @param passed 直前の手番がパスだったかどうか
+         * @param hash 局面のハッシュ値
+         * @param ply ルートからの手数
+         * @return piece 側から見た評価値
+         */
+        private int negamax(Piece piece, int depth, int alpha, int beta, boolean passed, long hash, int ply) {
+
+            if ( (++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && shouldAbort() ) {
+                aborted = true;
+            }
+            if ( aborted ) {
+                return 0;
+            }
+
+            // 置換表に十分な深さの結果があれば、それを使う
+            int alphaOrig = alpha;
+            int hashMove = TranspositionTable.NO_MOVE;
+            if ( table != null ) {
+                long entry = table.probe(hash);
+                if ( entry != 0 ) {
+                    hashMove = TranspositionTable.getMove(entry);
+                    if ( TranspositionTable.getDepth(entry) >= depth ) {
+                        int score = TranspositionTable.getScore(entry);
+                        int flag = TranspositionTable.getFlag(entry);
+                        if ( flag == TranspositionTable.EXACT ) {
+                            return score;
+                        } else if ( flag == TranspositionTable.LOWER && score > alpha ) {
+                            alpha = score;
+                        } else if ( flag == TranspositionTable.UPPER && score < beta ) {
+                            beta = score;
+                        }
+                        if ( alpha >= beta ) {
+                            return score;
+                        }
+                    }
+                }
+            }
+
+            long moves = board.legalMoves(piece);
+            if ( moves == 0 ) {
+                if ( passed ) {
+                    // 両者とも置けない、決着が付いている盤面
+                    return getEndScore(board, piece);
+                }
+                return -negamax(piece.getReverse(), depth, -beta, -alpha, true,
+                        hash ^ ZobristHash.SIDE_KEY, ply + 1);
+            }
+
+            if ( depth <= 0 ) {
+                int score = (state != null) ? state.evaluate(board, piece) : evaluator.evaluate(board, piece);
+                if ( evaluationNoise > 0 ) {
+                    score += ThreadLocalRandom.current().nextInt(-evaluationNoise, evaluationNoise + 1);
+                }
+                return score;
+            }
+
+            // 置換表の最善手、キラー手、ヒストリーと相手の着手可能数の順に調べる
+            int count = Long.bitCount(moves);
+            int[] ordered = orderer.order(board.getMaskOf(piece), board.getMaskOf(piece.getReverse()),
+                    piece, moves, hashMove, ply, depth);
+
+            int best = -INFINITY;
+            int bestMove = TranspositionTable.NO_MOVE;
+            for ( int i=0; i<count; i++ ) {
+                int square = ordered[i];
+
+                long flips = applyMove(square, piece);
+                long childHash = board.getHash(piece.getReverse());
+                int score = -negamax(piece.getReverse(), depth - 1, -beta, -alpha, false, childHash, ply + 1);
+                undoMove(square, piece, flips);
+                if ( aborted ) {
+                    return 0;
+                }
+
+                if ( score > best ) {
+                    best = score;
+                    bestMove = square;
+                    if ( score > alpha ) {
+                        alpha = score;
+                        if ( alpha >= beta ) {
+                            cutoffs++;
+                            if ( i == 0 ) {
+                                firstMoveCutoffs++;
+                            }
+                            orderer.recordCutoff(piece, square, ply, depth);
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if ( table != null ) {
+                int flag;
+                if ( best <= alphaOrig ) {
+                    flag = TranspositionTable.UPPER;
+                } else if ( best >= beta ) {
+                    flag = TranspositionTable.LOWER;
+                } else {
+                    flag = TranspositionTable.EXACT;
+                }
+                table.store(hash, depth, flag, best, bestMove);
+            }
+
+            return best;
+        }
+    }
+}
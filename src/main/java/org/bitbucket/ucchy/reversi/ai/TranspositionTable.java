@@ -0,0 +1,159 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.ai;
+
+/**
+ * 探索済みの局面を記憶しておく、固定サイズの置換表。<br/>
+ * エントリは、ハッシュ値と、評価値・深度・種別・最善手・世代を詰め込んだ long の組で保持する。
+ * ハッシュ値はデータとの排他的論理和で格納するので、複数スレッドから同時に読み書きされても、
+ * 壊れたエントリは probe で不一致として捨てられる。
+ * @author ucchy
+ */
+public class TranspositionTable {
+
+    /** 評価値が正確な値 */
+    public static final int EXACT = 0;
+
+    /** 評価値が下限（ベータカットが発生した） */
+    public static final int LOWER = 1;
+
+    /** 評価値が上限（どの手もアルファを超えなかった） */
+    public static final int UPPER = 2;
+
+    /** 最善手が無いことを示す値 */
+    public static final int NO_MOVE = 64;
+
+    /** エントリ数の初期値 */
+    public static final int DEFAULT_SIZE = 65536;
+
+    private static final long VALID_BIT = 1L << 57;
+
+    private long[] keys;
+    private long[] datas;
+    private int mask;
+    private int generation;
+
+    /**
+     * コンストラクタ
+     * @param size エントリ数、2のべき乗に切り下げられる
+     */
+    public TranspositionTable(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 1));
+        keys = new long[capacity];
+        datas = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 新しい探索の開始を通知する。以前の探索で記録されたエントリは、優先して置き換えられるようになる。
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xff;
+    }
+
+    /**
+     * 全てのエントリを消去する。
+     */
+    public void clear() {
+        for ( int i=0; i<keys.length; i++ ) {
+            keys[i] = 0;
+            datas[i] = 0;
+        }
+    }
+
+    /**
+     * 指定された局面のエントリを探して返す。
+     * @param hash 局面のハッシュ値
+     * @return エントリ、見つからない場合は0
+     */
+    public long probe(long hash) {
+        int index = (int)hash & mask;
+        long data = datas[index];
+        if ( data != 0 && (keys[index] ^ data) == hash ) {
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * 局面の探索結果を記録する。
+     * 別の局面が入っているスロットは、それが以前の探索のものか、より浅い探索のものである場合だけ置き換える。
+     * @param hash 局面のハッシュ値
+     * @param depth 探索深度
+     * @param flag 評価値の種別（EXACT、LOWER、UPPER）
+     * @param score 評価値
+     * @param move 最善手のビット位置、無い場合は NO_MOVE
+     */
+    public void store(long hash, int depth, int flag, int score, int move) {
+        int index = (int)hash & mask;
+        long old = datas[index];
+        if ( old != 0 && (keys[index] ^ old) != hash
+                && getGeneration(old) == generation && getDepth(old) > depth ) {
+            return;
+        }
+        long data = (score & 0xffffffffL)
+                | ((long)(depth & 0xff) << 32)
+                | ((long)(flag & 0x3) << 40)
+                | ((long)(move & 0x7f) << 42)
+                | ((long)generation << 49)
+                | VALID_BIT;
+        datas[index] = data;
+        keys[index] = hash ^ data;
+    }
+
+    /**
+     * エントリ数を返す
+     * @return エントリ数
+     */
+    public int getSize() {
+        return keys.length;
+    }
+
+    /**
+     * エントリから評価値を取り出す
+     * @param entry エントリ
+     * @return 評価値
+     */
+    public static int getScore(long entry) {
+        return (int)entry;
+    }
+
+    /**
+     * エントリから探索深度を取り出す
+     * @param entry エントリ
+     * @return 探索深度
+     */
+    public static int getDepth(long entry) {
+        return (int)(entry >>> 32) & 0xff;
+    }
+
+    /**
+     * エントリから評価値の種別を取り出す
+     * @param entry エントリ
+     * @return 評価値の種別（EXACT、LOWER、UPPER）
+     */
+    public static int getFlag(long entry) {
+        return (int)(entry >>> 40) & 0x3;
+    }
+
+    /**
+     * エントリから最善手を取り出す
+     * @param entry エントリ
+     * @return 最善手のビット位置、無い場合は NO_MOVE
+     */
+    public static int getMove(long entry) {
+        return (int)(entry >>> 42) & 0x7f;
+    }
+
+    /**
+     * エントリから世代を取り出す
+     * @param entry エントリ
+     * @return 世代
+     */
+    private static int getGeneration(long entry) {
+        return (int)(entry >>> 49) & 0xff;
+    }
+}
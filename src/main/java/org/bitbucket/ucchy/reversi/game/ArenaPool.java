@@ -0,0 +1,159 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.game;
+
+import java.util.ArrayDeque;
+
+import org.bitbucket.ucchy.reversi.ReversiLab;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * 生成済みのゲームフィールドを、再利用のために待機させておくプール。<br/>
+ * 待機中のフィールドは、ブロックとアーマースタンドを置いたまま、石を全て取り除いた状態で保持する。
+ * 対局の開始時は待機中のフィールドを優先して渡すので、ブロックの設置やチャンクの読み込みが発生しない。<br/>
+ * サーバーのメインスレッドからだけ呼び出すこと。
+ * @author ucchy
+ */
+public class ArenaPool {
+
+    /** 待機させておくフィールド数の初期値 */
+    public static final int DEFAULT_SIZE = 2;
+
+    private GridAllocator grids;
+    private World world;
+    private int size;
+    private ArrayDeque<GameField> idle;
+
+    /**
+     * コンストラクタ
+     * @param grids グリッドの割り当て器
+     * @param world フィールドを置くワールド
+     * @param size 待機させておくフィールド数
+     */
+    public ArenaPool(GridAllocator grids, World world, int size) {
+        this.grids = grids;
+        this.world = world;
+        this.size = Math.max(size, 0);
+        this.idle = new ArrayDeque<GameField>();
+    }
+
+    /**
+     * 待機させておくフィールドを、1tickに1つずつ生成する。
+     * @param plugin プラグイン
+     */
+    public void prepare(Plugin plugin) {
+
+        new BukkitRunnable() {
+            public void run() {
+
+                if ( idle.size() >= size ) {
+                    cancel();
+                    return;
+                }
+
+                GameField field = createField();
+                if ( field == null ) {
+                    cancel();
+                    return;
+                }
+                field.build();
+                idle.addLast(field);
+            }
+        }.runTaskTimer(plugin, 1, 1);
+    }
+
+    /**
+     * 新しい対局に使えるフィールドがあるかどうかを返す
+     * @return フィールドがあるかどうか
+     */
+    public boolean hasOpenArena() {
+        return !idle.isEmpty() || grids.getFreeCount() > 0;
+    }
+
+    /**
+     * 対局に使うフィールドを確保する。待機中のフィールドがあればそれを返し、
+     * 無ければ空いているグリッドに、まだ生成していないフィールドを用意して返す。
+     * @return フィールド、グリッドに空きが無い場合はnull
+     */
+    protected GameField acquire() {
+        GameField field = idle.pollFirst();
+        if ( field != null ) {
+            return field;
+        }
+        return createField();
+    }
+
+    /**
+     * 対局が終わったフィールドを返却する。
+     * 待機中のフィールドが足りなければ、石を取り除いて待機させ、
+     * 足りていればフィールドをクリーンアップして、完了したらグリッドを返却する。
+     * @param field フィールド
+     */
+    protected void release(GameField field) {
+
+        if ( idle.size() < size && ReversiLab.getInstance().isEnabled() ) {
+            field.hide();
+            idle.addFirst(field);
+            return;
+        }
+        cleanup(field);
+    }
+
+    /**
+     * 待機中のフィールドを全てクリーンアップする。
+     */
+    public void dispose() {
+        while ( !idle.isEmpty() ) {
+            cleanup(idle.pollFirst());
+        }
+    }
+
+    /**
+     * 待機中のフィールド数を返す
+     * @return 待機中のフィールド数
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * グリッドの割り当て器を返す
+     * @return グリッドの割り当て器
+     */
+    protected GridAllocator getGridAllocator() {
+        return grids;
+    }
+
+    /**
+     * 空いているグリッドを確保して、フィールドを用意する
+     * @return フィールド、グリッドに空きが無い場合はnull
+     */
+    private GameField createField() {
+        int grid = grids.acquire();
+        if ( grid < 0 ) {
+            return null;
+        }
+        Location origin = new Location(
+                world, grids.getGridX(grid) * 640, 75, grids.getGridZ(grid) * 640);
+        return new GameField(grid, origin);
+    }
+
+    /**
+     * フィールドをクリーンアップして、完了したらグリッドを返却する
+     * @param field フィールド
+     */
+    private void cleanup(GameField field) {
+        final int grid = field.getGrid();
+        field.cleanup(new Runnable() {
+            public void run() {
+                grids.release(grid);
+            }
+        });
+    }
+}
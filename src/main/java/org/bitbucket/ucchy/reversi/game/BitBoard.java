@@ -0,0 +1,133 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.game;
+
+/**
+ * 64bitのマスクで盤面を扱うための、ビットボード演算ユーティリティ。
+ * マス目 (x, y) は、ビット位置 y * 8 + x に対応する。
+ * @author ucchy
+ */
+public final class BitBoard {
+
+    /** 左端(x=0)の列を除いたマスク */
+    public static final long NOT_FILE_A = 0xfefefefefefefefeL;
+
+    /** 右端(x=7)の列を除いたマスク */
+    public static final long NOT_FILE_H = 0x7f7f7f7f7f7f7f7fL;
+
+    /** 方向の個数 */
+    public static final int DIRECTIONS = 8;
+
+    /**
+     * コンストラクタ（インスタンス化不可）
+     */
+    private BitBoard() {
+    }
+
+    /**
+     * 座標から、ビット位置を取得する
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @return ビット位置
+     */
+    public static int toSquare(int x, int y) {
+        return (y << 3) | x;
+    }
+
+    /**
+     * 座標から、そのマス目だけが立っているマスクを取得する
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @return マスク
+     */
+    public static long toMask(int x, int y) {
+        return 1L << toSquare(x, y);
+    }
+
+    /**
+     * 指定された方向に、マスクを1マス分ずらす。盤外にはみ出したビットは捨てられる。<br/>
+     * 方向は 0:(-1,-1) 1:(-1,0) 2:(-1,1) 3:(0,1) 4:(1,1) 5:(1,0) 6:(1,-1) 7:(0,-1) の順。
+     * @param mask マスク
+     * @param direction 方向
+     * @return ずらしたマスク
+     */
+    public static long shift(long mask, int direction) {
+        switch ( direction ) {
+        case 0: return (mask >>> 9) & NOT_FILE_H;
+        case 1: return (mask >>> 1) & NOT_FILE_H;
+        case 2: return (mask << 7) & NOT_FILE_H;
+        case 3: return mask << 8;
+        case 4: return (mask << 9) & NOT_FILE_A;
+        case 5: return (mask << 1) & NOT_FILE_A;
+        case 6: return (mask >>> 7) & NOT_FILE_A;
+        default: return mask >>> 8;
+        }
+    }
+
+    /**
+     * 着手可能なマス目を、すべて求めて返す。
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @return 着手可能なマス目のマスク
+     */
+    public static long getMobility(long player, long opponent) {
+
+        long empty = ~(player | opponent);
+        long moves = 0;
+
+        for ( int dir=0; dir<DIRECTIONS; dir++ ) {
+            long t = shift(player, dir) & opponent;
+            t |= shift(t, dir) & opponent;
+            t |= shift(t, dir) & opponent;
+            t |= shift(t, dir) & opponent;
+            t |= shift(t, dir) & opponent;
+            t |= shift(t, dir) & opponent;
+            moves |= shift(t, dir) & empty;
+        }
+
+        return moves;
+    }
+
+    /**
+     * 指定したマス目に石を置いた場合に、裏返すことができる石を求めて返す。
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @param square 置くマス目のビット位置
+     * @return 裏返される石のマスク、置けない場合は0
+     */
+    public static long getFlips(long player, long opponent, int square) {
+
+        long move = 1L << square;
+        if ( ((player | opponent) & move) != 0 ) {
+            return 0;
+        }
+
+        long flips = 0;
+        for ( int dir=0; dir<DIRECTIONS; dir++ ) {
+            flips |= getFlips(player, opponent, move, dir);
+        }
+        return flips;
+    }
+
+    /**
+     * 指定したマス目に石を置いた場合に、指定された方向について、裏返すことができる石を求めて返す。
+     * @param player 手番側の石のマスク
+     * @param opponent 相手側の石のマスク
+     * @param move 置くマス目のマスク
+     * @param direction 調査する方向
+     * @return 裏返される石のマスク
+     */
+    public static long getFlips(long player, long opponent, long move, int direction) {
+
+        long line = 0;
+        long cursor = shift(move, direction);
+        while ( (cursor & opponent) != 0 ) {
+            line |= cursor;
+            cursor = shift(cursor, direction);
+        }
+        return ((cursor & player) != 0) ? line : 0;
+    }
+}
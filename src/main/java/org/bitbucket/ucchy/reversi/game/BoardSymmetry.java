@@ -0,0 +1,217 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.game;
+
+/**
+ * 盤面の8通りの対称変換（回転・反転）を扱うためのユーティリティ。<br/>
+ * 変換の番号は 0〜7 で、ビット2が対角線(x=y)での反転、ビット0が左右反転、ビット1が上下反転を表し、
+ * この順に適用する。0 は恒等変換。<br/>
+ * 局面の正規形は、8通りの変換後の（黒石のマスク、白石のマスク）の組が最小になる向きとする。
+ * 回転・反転した局面は同じ正規形になるので、正規形のキーは、定石ブックやキャッシュなどで局面を共有するのに使える。
+ * @author ucchy
+ */
+public final class BoardSymmetry {
+
+    /** 対称変換の個数 */
+    public static final int COUNT = 8;
+
+    /** 恒等変換 */
+    public static final int IDENTITY = 0;
+
+    private static final int FLIP_HORIZONTAL = 1;
+    private static final int FLIP_VERTICAL = 2;
+    private static final int FLIP_DIAGONAL = 4;
+
+    /** 白の手番のときに、キーに加える値 */
+    private static final long WHITE_TO_MOVE = 0x6a09e667f3bcc909L;
+
+    /** それぞれの変換の逆変換 */
+    private static final int[] INVERSE = new int[COUNT];
+
+    static {
+        for ( int symmetry=0; symmetry<COUNT; symmetry++ ) {
+            for ( int inverse=0; inverse<COUNT; inverse++ ) {
+                if ( transformSquare(transformSquare(1, symmetry), inverse) == 1
+                        && transformSquare(transformSquare(8, symmetry), inverse) == 8 ) {
+                    INVERSE[symmetry] = inverse;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * コンストラクタ（インスタンス化不可）
+     */
+    private BoardSymmetry() {
+    }
+
+    /**
+     * マスクに対称変換を適用する
+     * @param mask マスク
+     * @param symmetry 変換の番号
+     * @return 変換後のマスク
+     */
+    public static long transform(long mask, int symmetry) {
+        if ( (symmetry & FLIP_DIAGONAL) != 0 ) {
+            mask = flipDiagonal(mask);
+        }
+        if ( (symmetry & FLIP_HORIZONTAL) != 0 ) {
+            mask = flipHorizontal(mask);
+        }
+        if ( (symmetry & FLIP_VERTICAL) != 0 ) {
+            mask = Long.reverseBytes(mask);
+        }
+        return mask;
+    }
+
+    /**
+     * マス目のビット位置に対称変換を適用する
+     * @param square ビット位置
+     * @param symmetry 変換の番号
+     * @return 変換後のビット位置
+     */
+    public static int transformSquare(int square, int symmetry) {
+        int x = square & 7;
+        int y = square >>> 3;
+        if ( (symmetry & FLIP_DIAGONAL) != 0 ) {
+            int temp = x;
+            x = y;
+            y = temp;
+        }
+        if ( (symmetry & FLIP_HORIZONTAL) != 0 ) {
+            x = 7 - x;
+        }
+        if ( (symmetry & FLIP_VERTICAL) != 0 ) {
+            y = 7 - y;
+        }
+        return (y << 3) | x;
+    }
+
+    /**
+     * 逆変換の番号を返す
+     * @param symmetry 変換の番号
+     * @return 逆変換の番号
+     */
+    public static int inverse(int symmetry) {
+        return INVERSE[symmetry];
+    }
+
+    /**
+     * 局面を正規形にする変換の番号を返す。
+     * 変換後の局面が同じになる変換が複数ある場合は、番号が最も小さいものを選ぶ。
+     * @param black 黒石のマスク
+     * @param white 白石のマスク
+     * @return 変換の番号
+     */
+    public static int getCanonicalSymmetry(long black, long white) {
+
+        int best = IDENTITY;
+        long bestBlack = black;
+        long bestWhite = white;
+
+        for ( int diagonal=0; diagonal<COUNT; diagonal+=FLIP_DIAGONAL ) {
+            long b = (diagonal != 0) ? flipDiagonal(black) : black;
+            long w = (diagonal != 0) ? flipDiagonal(white) : white;
+            for ( int flip=0; flip<FLIP_DIAGONAL; flip++ ) {
+                long tb = b;
+                long tw = w;
+                if ( (flip & FLIP_HORIZONTAL) != 0 ) {
+                    tb = flipHorizontal(tb);
+                    tw = flipHorizontal(tw);
+                }
+                if ( (flip & FLIP_VERTICAL) != 0 ) {
+                    tb = Long.reverseBytes(tb);
+                    tw = Long.reverseBytes(tw);
+                }
+                if ( tb < bestBlack || (tb == bestBlack && tw < bestWhite) ) {
+                    best = diagonal | flip;
+                    bestBlack = tb;
+                    bestWhite = tw;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 盤面を正規形にする変換の番号を返す
+     * @param board 盤面
+     * @return 変換の番号
+     */
+    public static int getCanonicalSymmetry(GameBoard board) {
+        return getCanonicalSymmetry(board.getMaskOf(Piece.BLACK), board.getMaskOf(Piece.WHITE));
+    }
+
+    /**
+     * 変換を適用した局面の、64bitのキーを返す
+     * @param black 黒石のマスク
+     * @param white 白石のマスク
+     * @param piece 手番
+     * @param symmetry 変換の番号
+     * @return キー
+     */
+    public static long getKey(long black, long white, Piece piece, int symmetry) {
+        long key = transform(black, symmetry) * 0x9e3779b97f4a7c15L;
+        key ^= Long.rotateLeft(transform(white, symmetry) * 0xc2b2ae3d27d4eb4fL, 31);
+        if ( piece == Piece.WHITE ) {
+            key ^= WHITE_TO_MOVE;
+        }
+        // splitmix64 の最終段で、ビットを十分に混ぜる
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+
+    /**
+     * 正規形の局面の、64bitのキーを返す。回転・反転した局面は、全て同じキーになる。
+     * @param black 黒石のマスク
+     * @param white 白石のマスク
+     * @param piece 手番
+     * @return キー
+     */
+    public static long getCanonicalKey(long black, long white, Piece piece) {
+        return getKey(black, white, piece, getCanonicalSymmetry(black, white));
+    }
+
+    /**
+     * 正規形の盤面の、64bitのキーを返す。回転・反転した盤面は、全て同じキーになる。
+     * @param board 盤面
+     * @param piece 手番
+     * @return キー
+     */
+    public static long getCanonicalKey(GameBoard board, Piece piece) {
+        return getCanonicalKey(board.getMaskOf(Piece.BLACK), board.getMaskOf(Piece.WHITE), piece);
+    }
+
+    /**
+     * 左右反転（x → 7 - x）
+     * @param mask マスク
+     * @return 変換後のマスク
+     */
+    private static long flipHorizontal(long mask) {
+        mask = ((mask >>> 1) & 0x5555555555555555L) | ((mask & 0x5555555555555555L) << 1);
+        mask = ((mask >>> 2) & 0x3333333333333333L) | ((mask & 0x3333333333333333L) << 2);
+        mask = ((mask >>> 4) & 0x0f0f0f0f0f0f0f0fL) | ((mask & 0x0f0f0f0f0f0f0f0fL) << 4);
+        return mask;
+    }
+
+    /**
+     * 対角線 x = y での反転（x と y の入れ替え）
+     * @param mask マスク
+     * @return 変換後のマスク
+     */
+    private static long flipDiagonal(long mask) {
+        long t;
+        t = 0x0f0f0f0f00000000L & (mask ^ (mask << 28));
+        mask ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (mask ^ (mask << 14));
+        mask ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (mask ^ (mask << 7));
+        mask ^= t ^ (t >>> 7);
+        return mask;
+    }
+}
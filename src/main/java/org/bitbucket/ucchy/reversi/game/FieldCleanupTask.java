@@ -0,0 +1,93 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.game;
+
+import java.util.List;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * ゲームフィールドが置いたブロックを、数tickに分けて消去するタスク。<br/>
+ * 1tickあたりの処理時間が予算を超えたら、残りは次のtickに回す。
+ * 全て消去し終わったら、完了時の処理を呼び出す。
+ * @author ucchy
+ */
+public class FieldCleanupTask extends BukkitRunnable {
+
+    private List<Block> blocks;
+    private long budgetNanos;
+    private Runnable onComplete;
+    private int index;
+
+    /**
+     * コンストラクタ
+     * @param blocks 消去するブロック
+     * @param budgetMillis 1tickあたりの処理時間の予算（ミリ秒）
+     * @param onComplete 全て消去し終わったときの処理、不要ならnull
+     */
+    public FieldCleanupTask(List<Block> blocks, int budgetMillis, Runnable onComplete) {
+        this.blocks = blocks;
+        this.budgetNanos = Math.max(budgetMillis, 0) * 1000000L;
+        this.onComplete = onComplete;
+        this.index = 0;
+    }
+
+    /**
+     * タスクを開始する。
+     * プラグインが無効化処理中でタスクを登録できない場合は、その場で全て消去する。
+     * @param plugin プラグイン
+     */
+    public void start(Plugin plugin) {
+        if ( plugin.isEnabled() ) {
+            runTaskTimer(plugin, 1, 1);
+        } else {
+            while ( !step(Long.MAX_VALUE) );
+            complete();
+        }
+    }
+
+    /**
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+        if ( step(budgetNanos) ) {
+            cancel();
+            complete();
+        }
+    }
+
+    /**
+     * 予算の時間内で、ブロックを消去する。予算が足りなくても、最低1つは消去する。
+     * @param budget 処理時間の予算（ナノ秒）
+     * @return 全て消去し終わったかどうか
+     */
+    private boolean step(long budget) {
+        long start = System.nanoTime();
+        while ( index < blocks.size() ) {
+            Block block = blocks.get(index++);
+            if ( block.getType() != Material.AIR ) {
+                block.setType(Material.AIR);
+            }
+            if ( System.nanoTime() - start >= budget ) {
+                break;
+            }
+        }
+        return index >= blocks.size();
+    }
+
+    /**
+     * 完了時の処理を呼び出す
+     */
+    private void complete() {
+        if ( onComplete != null ) {
+            onComplete.run();
+        }
+    }
+}
@@ -8,27 +8,40 @@ package org.bitbucket.ucchy.reversi.game;
 import java.util.ArrayList;
 
 /**
- * ボード
+ * ボード。<br/>
+ * 石の配置のZobristハッシュを、着手と取り消しのたびに差分で更新して保持している。
  * @author ucchy
  */
 public class GameBoard implements Cloneable {
 
-    private Piece[][] board;
+    private static final int[] X_DIRECTIONS = {-1, -1, -1, 0, 1, 1, 1, 0};
+    private static final int[] Y_DIRECTIONS = {-1, 0, 1, 1, 1, 0, -1, -1};
+
+    private long black;
+    private long white;
+
+    /** 石の配置のZobristハッシュ（手番を含まない） */
+    private long hash;
 
     /**
      * コンストラクタ
      */
     public GameBoard() {
-        board = new Piece[8][8];
-        for ( int y=0; y<8; y++ ) {
-            for ( int x=0; x<8; x++ ) {
-                board[y][x] = Piece.EMPTY;
-            }
-        }
-        board[3][3] = Piece.BLACK;
-        board[3][4] = Piece.WHITE;
-        board[4][3] = Piece.WHITE;
-        board[4][4] = Piece.BLACK;
+        black = BitBoard.toMask(3, 3) | BitBoard.toMask(4, 4);
+        white = BitBoard.toMask(4, 3) | BitBoard.toMask(3, 4);
+        hash = ZobristHash.getHash(black, white, Piece.BLACK);
+    }
+
+    /**
+     * コンストラクタ
+     * @param black 黒石のマスク
+     * @param white 白石のマスク
+     * @param hash 石の配置のZobristハッシュ
+     */
+    private GameBoard(long black, long white, long hash) {
+        this.black = black;
+        this.white = white;
+        this.hash = hash;
     }
 
     /**
@@ -36,13 +49,43 @@ public class GameBoard implements Cloneable {
      * @see java.lang.Cloneable#clone()
      */
     public GameBoard clone() {
-        GameBoard clone = new GameBoard();
-        for ( int y=0; y<board.length; y++ ) {
-            for ( int x=0; x<board[y].length; x++ ) {
-                clone.board[y][x] = board[y][x];
-            }
+        return new GameBoard(black, white, hash);
+    }
+
+    /**
+     * 石の配置と手番から決まる、局面の64bitのZobristハッシュを返す。
+     * 着手のたびに差分で更新しているので、O(1) で得られる。
+     * 値は ZobristHash#getHash(long, long, Piece) で計算したものと同じになる。
+     * @param piece 手番
+     * @return ハッシュ値
+     */
+    public long getHash(Piece piece) {
+        return (piece == Piece.WHITE) ? hash ^ ZobristHash.SIDE_KEY : hash;
+    }
+
+    /**
+     * 石の配置から求めたハッシュコードを返す
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (int)(hash ^ (hash >>> 32));
+    }
+
+    /**
+     * 石の配置が同じかどうかを返す
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object other) {
+        if ( this == other ) {
+            return true;
+        }
+        if ( !(other instanceof GameBoard) ) {
+            return false;
         }
-        return clone;
+        GameBoard board = (GameBoard)other;
+        return black == board.black && white == board.white;
     }
 
     /**
@@ -52,7 +95,21 @@ public class GameBoard implements Cloneable {
      * @return ピース
      */
     public Piece getPieceAt(int x, int y) {
-        return board[y][x];
+        long mask = BitBoard.toMask(x, y);
+        if ( (black & mask) != 0 ) return Piece.BLACK;
+        if ( (white & mask) != 0 ) return Piece.WHITE;
+        return Piece.EMPTY;
+    }
+
+    /**
+     * 指定された石が置かれているマス目のマスクを取得する
+     * @param piece 石
+     * @return マスク、EMPTYを指定した場合は空きマスのマスク
+     */
+    public long getMaskOf(Piece piece) {
+        if ( piece == Piece.BLACK ) return black;
+        if ( piece == Piece.WHITE ) return white;
+        return ~(black | white);
     }
 
     /**
@@ -88,20 +145,43 @@ public class GameBoard implements Cloneable {
      */
     public ArrayList<int[]> findPath(int x, int y, Piece piece) {
         ArrayList<int[]> results = new ArrayList<int[]>();
-        if ( board[y][x] != Piece.EMPTY ) {
+        long move = BitBoard.toMask(x, y);
+        if ( ((black | white) & move) != 0 ) {
             return results;
         }
-        results.addAll(findPath(x, y, piece, -1, -1));
-        results.addAll(findPath(x, y, piece, -1, 0));
-        results.addAll(findPath(x, y, piece, -1, 1));
-        results.addAll(findPath(x, y, piece, 0, 1));
-        results.addAll(findPath(x, y, piece, 1, 1));
-        results.addAll(findPath(x, y, piece, 1, 0));
-        results.addAll(findPath(x, y, piece, 1, -1));
-        results.addAll(findPath(x, y, piece, 0, -1));
+
+        // 演出で1つずつ裏返す順番を保つため、方向ごと、近い順に座標を並べる
+        long player = getMaskOf(piece);
+        long opponent = getMaskOf(piece.getReverse());
+        for ( int dir=0; dir<BitBoard.DIRECTIONS; dir++ ) {
+            long flips = BitBoard.getFlips(player, opponent, move, dir);
+            int xCursole = x + X_DIRECTIONS[dir];
+            int yCursole = y + Y_DIRECTIONS[dir];
+            while ( flips != 0 ) {
+                results.add(new int[]{xCursole, yCursole});
+                flips &= ~BitBoard.toMask(xCursole, yCursole);
+                xCursole += X_DIRECTIONS[dir];
+                yCursole += Y_DIRECTIONS[dir];
+            }
+        }
         return results;
     }
 
+    /**
+     * 指定したマス目に石を置いた場合、裏返すことができる石のマスクを調べて返す。
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @param piece 置く石
+     * @return 裏返される石のマスク、置けない場合は0
+     */
+    public long getFlips(int x, int y, Piece piece) {
+        if ( piece == Piece.EMPTY ) {
+            return 0;
+        }
+        return BitBoard.getFlips(getMaskOf(piece), getMaskOf(piece.getReverse()),
+                BitBoard.toSquare(x, y));
+    }
+
     /**
      * 指定された座標に石を置くことができるかどうかを調べて返す。
      * @param x マス目のx座標
@@ -110,10 +190,28 @@ public class GameBoard implements Cloneable {
      * @return 石を置くことができるかどうか
      */
     public boolean canPutAt(int x, int y, Piece piece) {
-        if ( board[y][x] != Piece.EMPTY ) {
-            return false;
+        return getFlips(x, y, piece) != 0;
+    }
+
+    /**
+     * 石を置くことができるマス目を、すべて調べてマスクで返す。
+     * @param piece 置く石
+     * @return 石を置くことができるマス目のマスク、ビット位置は y * 8 + x
+     */
+    public long legalMoves(Piece piece) {
+        if ( piece == Piece.EMPTY ) {
+            return 0;
         }
-        return findPath(x, y, piece).size() > 0;
+        return BitBoard.getMobility(getMaskOf(piece), getMaskOf(piece.getReverse()));
+    }
+
+    /**
+     * 石を置くことができるマス目の個数を返す。
+     * @param piece 置く石
+     * @return 石を置くことができるマス目の個数
+     */
+    public int getLegalMoveCount(Piece piece) {
+        return Long.bitCount(legalMoves(piece));
     }
 
     /**
@@ -121,14 +219,7 @@ public class GameBoard implements Cloneable {
      * @return 石を置くことができるかどうか
      */
     public boolean canPut(Piece piece) {
-        for ( int y=0; y<8; y++ ) {
-            for ( int x=0; x<8; x++ ) {
-                if ( canPutAt(x, y, piece) ) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return legalMoves(piece) != 0;
     }
 
     /**
@@ -136,7 +227,7 @@ public class GameBoard implements Cloneable {
      * @return 決着がついていない=true、決着がついた=false
      */
     public boolean canPutAll() {
-        return canPut(Piece.BLACK) || canPut(Piece.WHITE);
+        return (BitBoard.getMobility(black, white) | BitBoard.getMobility(white, black)) != 0;
     }
 
     /**
@@ -151,13 +242,78 @@ public class GameBoard implements Cloneable {
             return new ArrayList<int[]>();
         }
         ArrayList<int[]> reverse = findPath(x, y, piece);
-        board[y][x] = piece;
-        for ( int[] coordinate : reverse ) {
-            board[coordinate[1]][coordinate[0]] = piece;
-        }
+        applyMove(BitBoard.toSquare(x, y), piece);
         return reverse;
     }
 
+    /**
+     * 指定されたマス目に石を置き、盤面をその場で更新する。
+     * 戻り値を undoMove に渡すことで、置く前の盤面に戻すことができる。
+     * @param square 置くマス目のビット位置
+     * @param piece 置く石
+     * @return 裏返された石のマスク、置けなかった場合は0（盤面は変更されない）
+     */
+    public long applyMove(int square, Piece piece) {
+        if ( piece == Piece.EMPTY ) {
+            return 0;
+        }
+        long flips = (piece == Piece.BLACK) ?
+                BitBoard.getFlips(black, white, square) : BitBoard.getFlips(white, black, square);
+        if ( flips == 0 ) {
+            return 0;
+        }
+        long move = 1L << square;
+        if ( piece == Piece.BLACK ) {
+            black |= move | flips;
+            white &= ~flips;
+        } else {
+            white |= move | flips;
+            black &= ~flips;
+        }
+        hash ^= ZobristHash.getPlacementDelta(square, flips, piece);
+        return flips;
+    }
+
+    /**
+     * 指定された座標に石を置き、盤面をその場で更新する。
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @param piece 置く石
+     * @return 裏返された石のマスク、置けなかった場合は0（盤面は変更されない）
+     */
+    public long applyMove(int x, int y, Piece piece) {
+        return applyMove(BitBoard.toSquare(x, y), piece);
+    }
+
+    /**
+     * applyMove で置いた石を取り除き、裏返した石を元に戻す。
+     * @param square 置いたマス目のビット位置
+     * @param piece 置いた石
+     * @param flips applyMove が返した、裏返された石のマスク
+     */
+    public void undoMove(int square, Piece piece, long flips) {
+        long move = 1L << square;
+        if ( piece == Piece.BLACK ) {
+            black &= ~(move | flips);
+            white |= flips;
+        } else {
+            white &= ~(move | flips);
+            black |= flips;
+        }
+        hash ^= ZobristHash.getPlacementDelta(square, flips, piece);
+    }
+
+    /**
+     * applyMove で置いた石を取り除き、裏返した石を元に戻す。
+     * @param x 置いたマス目のx座標
+     * @param y 置いたマス目のy座標
+     * @param piece 置いた石
+     * @param flips applyMove が返した、裏返された石のマスク
+     */
+    public void undoMove(int x, int y, Piece piece, long flips) {
+        undoMove(BitBoard.toSquare(x, y), piece, flips);
+    }
+
     /**
      * ログ記録やデバッグ出力のための、盤面状況の文字表現を取得する。
      * @return 盤面
@@ -166,11 +322,11 @@ public class GameBoard implements Cloneable {
 
         ArrayList<String> field = new ArrayList<String>();
         field.add("+----------------+");
-        for ( Piece[] line : board ) {
+        for ( int y=0; y<8; y++ ) {
             StringBuffer buffer = new StringBuffer();
             buffer.append("|");
-            for ( Piece cell : line ) {
-                buffer.append(cell.toDisplayString());
+            for ( int x=0; x<8; x++ ) {
+                buffer.append(getPieceAt(x, y).toDisplayString());
             }
             buffer.append("|");
             field.add(buffer.toString());
@@ -186,58 +342,7 @@ public class GameBoard implements Cloneable {
      * @return 個数
      */
     public int getCountOf(Piece piece) {
-        int count = 0;
-        for ( Piece[] line : board ) {
-            for ( Piece cell : line ) {
-                if ( cell == piece ) {
-                    count++;
-                }
-            }
-        }
-        return count;
-    }
-
-    /**
-     * 指定したマス目に石を置いた場合、指定された方向について、裏返すことができる石の座標を調べて返す。
-     * @param x マス目のx座標
-     * @param y マス目のy座標
-     * @param piece 置く石
-     * @param xDirection 調査する方向のx座標
-     * @param yDirection 調査する方向のy座標
-     * @return 裏返される石の座標
-     */
-    private ArrayList<int[]> findPath(int x, int y, Piece piece, int xDirection, int yDirection) {
-
-        int xCursole = x + xDirection;
-        int yCursole = y + yDirection;
-        ArrayList<Piece> line = new ArrayList<Piece>();
-        ArrayList<int[]> coordinates = new ArrayList<int[]>();
-
-        while ( 0 <= xCursole && xCursole < 8 && 0 <= yCursole && yCursole < 8
-                && board[yCursole][xCursole] != Piece.EMPTY ) {
-            line.add(board[yCursole][xCursole]);
-            coordinates.add(new int[]{xCursole, yCursole});
-            xCursole += xDirection;
-            yCursole += yDirection;
-        }
-
-        if ( coordinates.size() <= 1 ) {
-            return new ArrayList<int[]>();
-        }
-
-        int index = 0;
-        while ( index < line.size() && line.get(index).isReverseOf(piece) ) {
-            index++;
-        }
-        if ( 0 < index && index < line.size() && line.get(index) == piece ) {
-            ArrayList<int[]> results = new ArrayList<int[]>();
-            for ( int i=0; i<index; i++ ) {
-                results.add(coordinates.get(i));
-            }
-            return results;
-        }
-
-        return new ArrayList<int[]>();
+        return Long.bitCount(getMaskOf(piece));
     }
 
     /**
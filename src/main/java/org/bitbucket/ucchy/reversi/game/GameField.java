@@ -5,7 +5,11 @@
  */
 package org.bitbucket.ucchy.reversi.game;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.bitbucket.ucchy.reversi.ReversiLab;
+import org.bukkit.Chunk;
 import org.bukkit.Color;
 import org.bukkit.Effect;
 import org.bukkit.FireworkEffect;
@@ -18,17 +22,23 @@ import org.bukkit.entity.ArmorStand;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Firework;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.FireworkMeta;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
 /**
- * ゲームフィールド
+ * ゲームフィールド<br/>
+ * 盤面のブロックと、64マス全てのアーマースタンドを最初に一度だけ生成し、
+ * 石の表示はアーマースタンドの頭の装備だけで切り替える。
+ * 生成したフィールドは、チャンクを読み込んだまま、盤面を初期配置に戻して再利用できる。
  * @author ucchy
  */
 public class GameField {
 
+    private int grid;
+
     private Location origin;
     private Location center;
 
@@ -37,49 +47,123 @@ public class GameField {
 
     private ArmorStand[][] stands;
 
+    /** 各マスに表示している石 */
+    private Piece[][] shown;
+
+    /** ブロックとアーマースタンドを生成済みかどうか */
+    private boolean built;
+
+    /** このフィールドが置いたブロック */
+    private List<Block> placedBlocks;
+
+    /** このフィールドが生成したエンティティ */
+    private List<Entity> spawnedEntities;
+
     /**
      * コンストラクタ
+     * @param grid フィールドを置くグリッドのスロット番号
      * @param origin 基点となる座標
      */
-    protected GameField(Location origin) {
+    protected GameField(int grid, Location origin) {
+        this.grid = grid;
         this.origin = origin;
         this.center = origin.clone().add(4, 0, 4);
-        //makeField();
+        this.stands = new ArmorStand[8][8];
+        this.shown = new Piece[8][8];
+        clearShown();
+        this.placedBlocks = new ArrayList<Block>();
+        this.spawnedEntities = new ArrayList<Entity>();
+
+        // プレイヤーの開始位置を設定
+        this.primaryPlayerLocation = origin.clone().add(4, 5, -1)
+                .setDirection(new Vector(0, -5, 5).normalize());
+        this.secondaryPlayerLocation = origin.clone().add(4, 5, 8)
+                .setDirection(new Vector(0, -5, -5).normalize());
     }
 
     /**
-     * フィールドを生成する
+     * フィールドを対局開始の状態にする。
+     * 生成済みのフィールドなら、初期配置と異なるマスだけを戻す。
      */
     protected void makeField() {
 
-        // クリーンアップ
-        cleanup(true);
+        if ( !built ) {
+            build();
+        }
+        reset();
+
+        // 中央の石にエフェクトを出す
+        playStoneEffect(3, 3, Piece.BLACK);
+        playStoneEffect(3, 4, Piece.WHITE);
+        playStoneEffect(4, 3, Piece.WHITE);
+        playStoneEffect(4, 4, Piece.BLACK);
+    }
+
+    /**
+     * 盤面のブロックと、全てのマスのアーマースタンドを生成する。
+     * アーマースタンドは頭に何も装備させないので、石を置くまでは見えない。
+     */
+    protected void build() {
 
         int startx = origin.getBlockX();
         int startz = origin.getBlockZ();
         World world = origin.getWorld();
 
+        // フィールドがある間は、チャンクを読み込んだままにする
+        world.getChunkAt(origin).addPluginChunkTicket(ReversiLab.getInstance());
+
+        // サーバーの停止などで、前回のフィールドの石が残っていたら消去する
+        for ( Entity entity : world.getNearbyEntities(center, 5, 3, 5) ) {
+            if ( !(entity instanceof Player) ) {
+                entity.remove();
+            }
+        }
+
         // 草ブロックを生成
         for ( int x = startx; x < startx + 8; x++ ) {
             for ( int z = startz; z < startz + 8; z++ ) {
                 Block block = world.getBlockAt(x, origin.getBlockY(), z);
                 block.setType((x + z) % 2 == 0 ?
                         Material.WHITE_STAINED_GLASS : Material.GREEN_STAINED_GLASS);
+                placedBlocks.add(block);
             }
         }
 
-        // アーマースタンドを生成、中央に石を置く
-        stands = new ArmorStand[8][8];
-        putStone(3, 3, Piece.BLACK);
-        putStone(3, 4, Piece.WHITE);
-        putStone(4, 3, Piece.WHITE);
-        putStone(4, 4, Piece.BLACK);
+        // アーマースタンドを生成
+        for ( int y=0; y<8; y++ ) {
+            for ( int x=0; x<8; x++ ) {
+                getStand(x, y);
+            }
+        }
 
-        // プレイヤーの開始位置を設定
-        this.primaryPlayerLocation = origin.clone().add(4, 5, -1)
-                .setDirection(new Vector(0, -5, 5).normalize());
-        this.secondaryPlayerLocation = origin.clone().add(4, 5, 8)
-                .setDirection(new Vector(0, -5, -5).normalize());
+        built = true;
+    }
+
+    /**
+     * 盤面を初期配置（中央に4つの石）に戻す。表示が初期配置と異なるマスだけを変更する。
+     */
+    protected void reset() {
+        for ( int y=0; y<8; y++ ) {
+            for ( int x=0; x<8; x++ ) {
+                Piece piece = getInitialPiece(x, y);
+                if ( shown[y][x] != piece ) {
+                    showStone(x, y, piece);
+                }
+            }
+        }
+    }
+
+    /**
+     * 全ての石を取り除く。石を表示しているマスだけを変更する。
+     */
+    protected void hide() {
+        for ( int y=0; y<8; y++ ) {
+            for ( int x=0; x<8; x++ ) {
+                if ( shown[y][x] != Piece.EMPTY ) {
+                    showStone(x, y, Piece.EMPTY);
+                }
+            }
+        }
     }
 
     /**
@@ -89,8 +173,50 @@ public class GameField {
      * @param piece 置く石
      */
     protected void putStone(int x, int y, Piece piece) {
+        showStone(x, y, piece);
+        playStoneEffect(x, y, piece);
+    }
+
+    /**
+     * 指定した座標の石の表示を変更する。
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @param piece 表示する石、EMPTYなら石を取り除く
+     */
+    private void showStone(int x, int y, Piece piece) {
+
+        ItemStack item = null;
+        if ( piece != Piece.EMPTY ) {
+            Material mat = (piece == Piece.BLACK) ?
+                    Material.NETHER_BRICK_SLAB : Material.QUARTZ_SLAB;
+            item = new ItemStack(mat);
+        }
+        getStand(x, y).setHelmet(item);
+        shown[y][x] = piece;
+    }
+
+    /**
+     * 指定した座標に、石を置いたときのエフェクトを発生させる。
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @param piece 置いた石
+     */
+    private void playStoneEffect(int x, int y, Piece piece) {
+        ArmorStand stand = getStand(x, y);
+        Location effectLocation = stand.getLocation().add(0, 1.2, 0);
+        int data = (piece == Piece.BLACK) ? 49 : 42;
+        stand.getWorld().playEffect(effectLocation, Effect.STEP_SOUND, data);
+    }
+
+    /**
+     * 指定した座標のアーマースタンドを返す。無い場合や、消されてしまった場合は生成する。
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @return アーマースタンド
+     */
+    private ArmorStand getStand(int x, int y) {
 
-        if ( stands[y][x] == null ) {
+        if ( stands[y][x] == null || !stands[y][x].isValid() ) {
 
             Location loc = new Location(origin.getWorld(),
                     origin.getBlockX() + x + 0.5,
@@ -103,52 +229,80 @@ public class GameField {
             stand.setSmall(true);
             stand.setVisible(false);
             stands[y][x] = stand;
+            spawnedEntities.add(stand);
+            shown[y][x] = Piece.EMPTY;
         }
 
-        ArmorStand stand = stands[y][x];
-
-        Material mat = (piece == Piece.BLACK) ?
-                Material.NETHER_BRICK_SLAB : Material.QUARTZ_SLAB;
-        ItemStack item = new ItemStack(mat);
-        stand.setHelmet(item);
-
-        // エフェクト発生
-        Location effectLocation = stand.getLocation().add(0, 1.2, 0);
-        int data = (piece == Piece.BLACK) ? 49 : 42;
-        stand.getWorld().playEffect(effectLocation, Effect.STEP_SOUND, data);
+        return stands[y][x];
     }
 
     /**
-     * 領域をクリーンアップする
-     * @param cleanupEntities エンティティをクリアするかどうか
+     * 初期配置で、指定した座標に置かれている石を返す
+     * @param x マス目のx座標
+     * @param y マス目のy座標
+     * @return 石、置かれていない場合はEMPTY
      */
-    protected void cleanup(boolean cleanupEntities) {
-
-        int startx = origin.getBlockX();
-        int startz = origin.getBlockZ();
-        World world = origin.getWorld();
+    private static Piece getInitialPiece(int x, int y) {
+        if ( (x == 3 || x == 4) && (y == 3 || y == 4) ) {
+            return (x == y) ? Piece.BLACK : Piece.WHITE;
+        }
+        return Piece.EMPTY;
+    }
 
-        // 領域を全クリア
-        for ( int x=startx-32; x<startx+32; x++ ) {
-            for ( int z=startz-32; z<startz+32; z++ ) {
-                for ( int y=255; y>=0; y-- ) {
-                    if ( world.getBlockAt(x, y, z).getType() != Material.AIR ) {
-                        world.getBlockAt(x, y, z).setType(Material.AIR);
-                    }
-                }
+    /**
+     * 全てのマスを、石を表示していない状態として記録する
+     */
+    private void clearShown() {
+        for ( int y=0; y<8; y++ ) {
+            for ( int x=0; x<8; x++ ) {
+                shown[y][x] = Piece.EMPTY;
             }
         }
+    }
 
-        // エンティティをクリア
-        if ( cleanupEntities ) {
-            for ( Entity entity : world.getEntities() ) {
-                Location loc = entity.getLocation();
-                if ( startx-32 <= loc.getBlockX() && loc.getBlockX() <= startx+32 &&
-                        startz-32 <= loc.getBlockZ() && loc.getBlockZ() <= startz+32 ) {
-                    entity.remove();
-                }
-            }
+    /**
+     * このフィールドが置いたブロックとエンティティを消去する。<br/>
+     * エンティティはその場で消去し、ブロックは数tickに分けて消去する。
+     * @param onComplete 全て消去し終わったときの処理、不要ならnull
+     */
+    protected void cleanup(final Runnable onComplete) {
+
+        // エンティティは数が少ないので、その場で消去する
+        for ( Entity entity : spawnedEntities ) {
+            entity.remove();
         }
+        spawnedEntities.clear();
+        stands = new ArmorStand[8][8];
+        clearShown();
+
+        final ReversiLab parent = ReversiLab.getInstance();
+        final Chunk chunk = built ? origin.getWorld().getChunkAt(origin) : null;
+        built = false;
+
+        // ブロックは、1tickあたりの処理時間の予算内で、少しずつ消去する。
+        // 消去の途中でチャンクがアンロードされないように、チャンクの読み込みは消去し終わるまで維持する。
+        FieldCleanupTask task = new FieldCleanupTask(
+                new ArrayList<Block>(placedBlocks),
+                parent.getReversiLabConfig().getArenaCleanupMillisPerTick(), new Runnable() {
+                    public void run() {
+                        if ( chunk != null ) {
+                            chunk.removePluginChunkTicket(parent);
+                        }
+                        if ( onComplete != null ) {
+                            onComplete.run();
+                        }
+                    }
+                });
+        placedBlocks.clear();
+        task.start(parent);
+    }
+
+    /**
+     * このゲームフィールドを置いたグリッドのスロット番号を返す
+     * @return スロット番号
+     */
+    protected int getGrid() {
+        return grid;
     }
 
     /**
@@ -8,6 +8,8 @@ package org.bitbucket.ucchy.reversi.game;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.bitbucket.ucchy.reversi.Messages;
 import org.bitbucket.ucchy.reversi.ReversiLab;
@@ -26,20 +28,23 @@ import org.bukkit.scheduler.BukkitRunnable;
 import com.github.ucchyocean.messaging.tellraw.MessageComponent;
 
 /**
- * ゲームセッションの抽象クラス
+ * ゲームセッションの抽象クラス<br/>
+ * セッションの状態は、サーバーのメインスレッドだけが変更する。
+ * フェーズと観客の一覧は、非同期スレッドから読まれても壊れた状態が見えないように保持する。
  * @author ucchy
  */
 public abstract class GameSession {
 
+    private int grid;
     private int grid_x;
     private int grid_z;
 
-    private GameSessionPhase phase;
+    private volatile GameSessionPhase phase;
     private GameBoard board;
     private GameField field;
     private GameSessionLogger logger;
 
-    private ArrayList<String> spectators;
+    private CopyOnWriteArrayList<String> spectators;
     private HashMap<String, Location> spectatorReturnPoints;
     private SidebarDisplay sidebar;
 
@@ -48,23 +53,22 @@ public abstract class GameSession {
      */
     public GameSession() {
 
-        this.spectators = new ArrayList<String>();
+        this.spectators = new CopyOnWriteArrayList<String>();
         this.spectatorReturnPoints = new HashMap<String, Location>();
         this.logger = new GameSessionLogger(new File(ReversiLab.getInstance().getDataFolder(), "logs"));
 
         // ゲームボードを生成
         board = new GameBoard();
 
-        // グリッドをマネージャから取得する
-        ReversiLab parent = ReversiLab.getInstance();
-        int[] grid = parent.getGameSessionManager().getOpenGrid();
-        this.grid_x = grid[0];
-        this.grid_z = grid[1];
-
-        // グリッドにゲーム用フィールドを生成する
-        Location origin = new Location(
-                parent.getWorld(), grid_x * 640, 75, grid_z * 640);
-        this.field = new GameField(origin);
+        // ゲーム用フィールドをマネージャから確保する
+        ArenaPool arenas = ReversiLab.getInstance().getGameSessionManager().getArenaPool();
+        this.field = arenas.acquire();
+        if ( field == null ) {
+            throw new IllegalStateException("There is no open grid for a new game field.");
+        }
+        this.grid = field.getGrid();
+        this.grid_x = arenas.getGridAllocator().getGridX(grid);
+        this.grid_z = arenas.getGridAllocator().getGridZ(grid);
 
         // スコアボードを準備する
         sidebar = new SidebarDisplay();
@@ -89,6 +93,7 @@ public abstract class GameSession {
         // 観客に追加
         spectators.add(player.getName());
         spectatorReturnPoints.put(player.getName(), player.getLocation());
+        ReversiLab.getInstance().getGameSessionManager().addIndex(player, this);
 
         // ゲームフィールドへテレポート
         player.teleport(field.getCenterRespawnPoint(), TeleportCause.PLUGIN);
@@ -128,6 +133,7 @@ public abstract class GameSession {
         // 観客から削除する
         spectators.remove(player.getName());
         spectatorReturnPoints.remove(player.getName());
+        ReversiLab.getInstance().getGameSessionManager().removeIndex(player, this);
 
         // サイドバーを解除
         sidebar.setMainScoreboard(player);
@@ -191,10 +197,29 @@ public abstract class GameSession {
      * 観客名を返す。
      * @return 観客名
      */
-    public ArrayList<String> getSpectators() {
+    public List<String> getSpectators() {
         return spectators;
     }
 
+    /**
+     * 確保したグリッドのスロット番号を取得する。
+     * @return スロット番号、グリッドを返却済みの場合は-1
+     */
+    protected int getGrid() {
+        return grid;
+    }
+
+    /**
+     * ゲームフィールドをマネージャに返却する。
+     * フィールドは次の対局のために待機させるか、クリーンアップしてからグリッドを返却する。
+     */
+    protected void releaseField() {
+
+        if ( grid < 0 ) return;
+        grid = -1;
+        ReversiLab.getInstance().getGameSessionManager().getArenaPool().release(field);
+    }
+
     /**
      * グリッド座標のXを取得する。
      * @return
@@ -220,11 +245,14 @@ public abstract class GameSession {
     }
 
     /**
-     * ゲームフェーズを設定する。
+     * ゲームフェーズを設定する。終了したフェーズになったら、プレイヤーと観客を索引から外す。
      * @param phase
      */
     protected void setPhase(GameSessionPhase phase) {
         this.phase = phase;
+        if ( isEnd() ) {
+            ReversiLab.getInstance().getGameSessionManager().removeIndex(this);
+        }
     }
 
     /**
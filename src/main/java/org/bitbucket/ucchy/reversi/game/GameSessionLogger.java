@@ -41,10 +41,10 @@ public class GameSessionLogger {
     }
 
     /**
-     * ログを出力する
+     * ログを出力する。非同期のチャットイベントからも呼ばれるので、同時に1スレッドずつ書き込む。
      * @param message ログ内容
      */
-    public void log(final String message) {
+    public synchronized void log(final String message) {
 
         String msg = ChatColor.stripColor(message).replace("\n", " ");
         BufferedWriter writer = null;
@@ -6,20 +6,33 @@
 package org.bitbucket.ucchy.reversi.game;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bitbucket.ucchy.reversi.ReversiLab;
+import org.bitbucket.ucchy.reversi.ReversiLabConfig;
 import org.bitbucket.ucchy.reversi.Utility;
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
 import org.bukkit.entity.Player;
 
 /**
- * ゲームセッションマネージャ
+ * ゲームセッションマネージャ<br/>
+ * スレッドモデル：セッションの作成・削除と索引の更新は、サーバーのメインスレッドだけが行う。
+ * 参照（getSession、getInvitedSession、getAllSessions）は、AsyncPlayerChatEvent などの非同期スレッドからも呼び出してよい。
+ * 登録簿はロックを取らずに読める並行マップで持つので、参照中に更新されても例外にならず、
+ * 更新の前か後のどちらかの状態が見える。CPUの思考スレッドは登録簿に触らず、依頼時にコピーした盤面だけを読む。
  * @author ucchy
  */
 public class GameSessionManager {
 
     private ReversiLab parent;
-    private HashMap<String, GameSession> sessions;
+    private ConcurrentHashMap<String, GameSession> sessions;
+
+    // 終了していないセッションのプレイヤーと観客の、UUIDごとのセッション
+    private ConcurrentHashMap<UUID, GameSession> playerSessions;
+
+    private ArenaPool arenas;
 
     /**
      * コンストラクタ
@@ -27,21 +40,25 @@ public class GameSessionManager {
      */
     public GameSessionManager(ReversiLab parent) {
         this.parent = parent;
-        sessions = new HashMap<String, GameSession>();
+        sessions = new ConcurrentHashMap<String, GameSession>();
+        playerSessions = new ConcurrentHashMap<UUID, GameSession>();
+        ReversiLabConfig config = parent.getReversiLabConfig();
+        arenas = new ArenaPool(new GridAllocator(config.getArenaCapacity()),
+                parent.getWorld(), config.getArenaPoolSize());
     }
 
     /**
-     * 指定したプレイヤーに関連するゲームセッションを取得する
+     * 指定したプレイヤーに関連するゲームセッションを取得する。
+     * プレイヤーと観客の索引を引くだけなので、ゲームに関係ないプレイヤーでもすぐに返る。
      * @param player プレイヤー
      * @return ゲームセッション
      */
     public GameSession getSession(Player player) {
-        for ( GameSession session : sessions.values() ) {
-            if ( !session.isEnd() && session.isRelatedPlayer(player.getName()) ) {
-                return session;
-            }
+        GameSession session = playerSessions.get(player.getUniqueId());
+        if ( session == null || session.isEnd() ) {
+            return null;
         }
-        return null;
+        return session;
     }
 
     /**
@@ -88,17 +105,53 @@ public class GameSessionManager {
      */
     public void removeSession(GameSession session) {
         sessions.remove(session.toString());
+        removeIndex(session);
+    }
+
+    /**
+     * プレイヤー（または観客）を、ゲームセッションの索引に登録する
+     * @param player プレイヤー
+     * @param session ゲームセッション
+     */
+    protected void addIndex(Player player, GameSession session) {
+        playerSessions.put(player.getUniqueId(), session);
+    }
+
+    /**
+     * プレイヤー（または観客）を、ゲームセッションの索引から削除する。
+     * 既に別のセッションに登録し直されている場合は、何もしない。
+     * @param player プレイヤー
+     * @param session ゲームセッション
+     */
+    protected void removeIndex(Player player, GameSession session) {
+        playerSessions.remove(player.getUniqueId(), session);
+    }
+
+    /**
+     * ゲームセッションのプレイヤーと観客を、全て索引から削除する
+     * @param session ゲームセッション
+     */
+    protected void removeIndex(GameSession session) {
+        Iterator<GameSession> it = playerSessions.values().iterator();
+        while ( it.hasNext() ) {
+            if ( it.next() == session ) {
+                it.remove();
+            }
+        }
     }
 
     /**
      * 新しいゲームセッションを作成する
      * @param owner オーナー
-     * @param difficulty 難易度
+     * @param profile CPUのAIプロファイル
      * @return 作成されたゲームセッション
      */
-    public SingleGameSession createNewSingleGameSession(Player owner, SingleGameDifficulty difficulty) {
-        SingleGameSession session = new SingleGameSession(parent, owner.getName(), difficulty);
+    public SingleGameSession createNewSingleGameSession(Player owner, AIProfile profile) {
+        SingleGameSession session = new SingleGameSession(parent, owner.getName(), profile);
         sessions.put(session.toString(), session);
+        if ( !session.isEnd() ) {
+            addIndex(owner, session);
+        }
         return session;
     }
 
@@ -111,69 +164,27 @@ public class GameSessionManager {
     public VersusGameSession createNewVersusGameSession(Player owner, Player opponent) {
         VersusGameSession session = new VersusGameSession(parent, owner.getName(), opponent.getName());
         sessions.put(session.toString(), session);
+        if ( !session.isEnd() ) {
+            addIndex(owner, session);
+            addIndex(opponent, session);
+        }
         return session;
     }
 
     /**
-     * 空き状態のグリッドを取得する
-     * @return グリッド
+     * 新しいゲームフィールドを置く、空きグリッドがあるかどうかを返す
+     * @return 空きグリッドがあるかどうか
      */
-    public int[] getOpenGrid() {
-
-        int size = 1;
-        int phase = 1;
-        int x = 1, z = 0;
-
-        while ( size <= 20 ) {
-
-            boolean isUsed = false;
-            for ( GameSession session : sessions.values() ) {
-                if ( session.getGrid_x() == x &&
-                        session.getGrid_z() == z &&
-                        !session.isEnd() ) {
-                    isUsed = true;
-                }
-            }
-            if ( !isUsed ) {
-                return new int[]{x, z};
-            }
-
-            switch ( phase ) {
-            case 1:
-                x--;
-                z++;
-                if ( z == size ) {
-                    phase = 2;
-                }
-                break;
-            case 2:
-                x--;
-                z--;
-                if ( x == -size ) {
-                    phase = 3;
-                }
-                break;
-            case 3:
-                x++;
-                z--;
-                if ( z == -size ) {
-                    phase = 4;
-                }
-                break;
-            case 4:
-                x++;
-                z++;
-                if ( x == size ) {
-                    phase = 1;
-                    size++;
-                    x++;
-                }
-                break;
-            }
-        }
+    public boolean hasOpenGrid() {
+        return arenas.hasOpenArena();
+    }
 
-        return new int[]{20, 0};
-        // 同時に420人が遊んでいるなら、この値が返されるが、まずそんなことはない。
+    /**
+     * ゲームフィールドのプールを返す
+     * @return ゲームフィールドのプール
+     */
+    public ArenaPool getArenaPool() {
+        return arenas;
     }
 
     /**
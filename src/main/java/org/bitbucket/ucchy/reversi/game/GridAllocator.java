@@ -0,0 +1,146 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.game;
+
+/**
+ * ゲームフィールドを置くグリッドの割り当て器。<br/>
+ * グリッドは原点の周りに菱形の渦巻き状に並べ、原点に近いものから順に番号（スロット）を付ける。
+ * 空いているスロットはスタックで持つので、確保と解放はどちらも O(1) で、
+ * 直前に解放された（チャンクが読み込まれたままの）スロットから再利用される。<br/>
+ * サーバーのメインスレッドからだけ呼び出すこと。
+ * @author ucchy
+ */
+public class GridAllocator {
+
+    /** 同時に使えるグリッド数の初期値 */
+    public static final int DEFAULT_CAPACITY = 400;
+
+    private int[] gridX;
+    private int[] gridZ;
+    private boolean[] used;
+    private int[] free;
+    private int freeCount;
+
+    /**
+     * コンストラクタ
+     * @param capacity 同時に使えるグリッド数
+     */
+    public GridAllocator(int capacity) {
+
+        capacity = Math.max(1, capacity);
+        gridX = new int[capacity];
+        gridZ = new int[capacity];
+        used = new boolean[capacity];
+        free = new int[capacity];
+
+        // 原点の隣から、1周ごとに半径を広げながら菱形に回る
+        int size = 1;
+        int phase = 1;
+        int x = 1, z = 0;
+        for ( int slot=0; slot<capacity; slot++ ) {
+
+            gridX[slot] = x;
+            gridZ[slot] = z;
+
+            switch ( phase ) {
+            case 1:
+                x--;
+                z++;
+                if ( z == size ) {
+                    phase = 2;
+                }
+                break;
+            case 2:
+                x--;
+                z--;
+                if ( x == -size ) {
+                    phase = 3;
+                }
+                break;
+            case 3:
+                x++;
+                z--;
+                if ( z == -size ) {
+                    phase = 4;
+                }
+                break;
+            case 4:
+                x++;
+                z++;
+                if ( x == size ) {
+                    phase = 1;
+                    size++;
+                    x++;
+                }
+                break;
+            }
+        }
+
+        // 原点に近いスロットが先に取り出されるように積む
+        for ( int slot=capacity-1; slot>=0; slot-- ) {
+            free[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * 空いているスロットを1つ確保する
+     * @return スロット番号、空きが無い場合は-1
+     */
+    public int acquire() {
+        if ( freeCount == 0 ) {
+            return -1;
+        }
+        int slot = free[--freeCount];
+        used[slot] = true;
+        return slot;
+    }
+
+    /**
+     * 確保したスロットを解放する。確保されていないスロットの場合は、何もしない。
+     * @param slot スロット番号
+     */
+    public void release(int slot) {
+        if ( slot < 0 || slot >= used.length || !used[slot] ) {
+            return;
+        }
+        used[slot] = false;
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * スロットのグリッド座標のXを返す
+     * @param slot スロット番号
+     * @return グリッド座標のX
+     */
+    public int getGridX(int slot) {
+        return gridX[slot];
+    }
+
+    /**
+     * スロットのグリッド座標のZを返す
+     * @param slot スロット番号
+     * @return グリッド座標のZ
+     */
+    public int getGridZ(int slot) {
+        return gridZ[slot];
+    }
+
+    /**
+     * 同時に使えるグリッド数を返す
+     * @return グリッド数
+     */
+    public int getCapacity() {
+        return used.length;
+    }
+
+    /**
+     * 空いているスロット数を返す
+     * @return 空きスロット数
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+}
@@ -19,4 +19,20 @@ public enum SingleGameDifficulty {
 
     /** むずかしい */
     HARD;
+
+    /**
+     * 与えられた文字列から、該当するSingleGameDifficultyを返す。
+     * @param str 文字列
+     * @param def デフォルト値
+     * @return SingleGameDifficulty
+     */
+    public static SingleGameDifficulty fromString(
+            String str, SingleGameDifficulty def) {
+
+        if ( str == null ) return def;
+        for ( SingleGameDifficulty difficulty : values() ) {
+            if ( difficulty.name().equalsIgnoreCase(str) ) return difficulty;
+        }
+        return def;
+    }
 }
@@ -12,10 +12,12 @@ import org.bitbucket.ucchy.reversi.Messages;
 import org.bitbucket.ucchy.reversi.ReversiLab;
 import org.bitbucket.ucchy.reversi.ReversiLabConfig;
 import org.bitbucket.ucchy.reversi.Utility;
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
+import org.bitbucket.ucchy.reversi.ai.AITask;
+import org.bitbucket.ucchy.reversi.ai.AITaskCallback;
+import org.bitbucket.ucchy.reversi.ai.PonderingAI;
 import org.bitbucket.ucchy.reversi.ai.ReversiAI;
-import org.bitbucket.ucchy.reversi.ai.ReversiAIEasy;
-import org.bitbucket.ucchy.reversi.ai.ReversiAIHard;
-import org.bitbucket.ucchy.reversi.ai.ReversiAINormal;
+import org.bitbucket.ucchy.reversi.ai.ReversiAISearch;
 import org.bitbucket.ucchy.reversi.ranking.PlayerScoreData;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
@@ -39,8 +41,12 @@ public class SingleGameSession extends GameSession {
     private ReversiLab parent;
     private GameSessionTurn turn;
 
+    private AIProfile profile;
     private SingleGameDifficulty difficulty;
     private ReversiAI ai;
+    private AITask cpuTask;
+    private AITask ponderTask;
+    private BukkitRunnable cpuMessageTask;
 
     private String ownerName;
     private boolean isOwnerBlack;
@@ -53,13 +59,14 @@ public class SingleGameSession extends GameSession {
      * コンストラクタ
      * @param parent
      * @param ownerName
-     * @param difficulty
+     * @param profile
      */
-    protected SingleGameSession(ReversiLab parent, String ownerName, SingleGameDifficulty difficulty) {
+    protected SingleGameSession(ReversiLab parent, String ownerName, AIProfile profile) {
 
         this.parent = parent;
         this.ownerName = ownerName;
-        this.difficulty = difficulty;
+        this.profile = profile;
+        this.difficulty = profile.getRank();
 
         // そのままPREPAREフェーズを実行する
         runPrepare();
@@ -113,14 +120,10 @@ public class SingleGameSession extends GameSession {
         // アイテムを持たせる
         setDiscItemInHand(owner, isOwnerBlack);
 
-        // AIを生成する
-        if ( difficulty == SingleGameDifficulty.EASY ) {
-            ai = new ReversiAIEasy();
-        } else if ( difficulty == SingleGameDifficulty.NORMAL ) {
-            ai = new ReversiAINormal();
-        } else {
-            ai = new ReversiAIHard();
-        }
+        // AIプロファイルの設定でAIを生成する
+        ReversiAISearch search = profile.createAI(parent.getSearchThreadPool(), parent.getOpeningBook());
+        search.setResultCache(parent.getAIResultCache());
+        ai = search;
 
         // サイドバーを設定する
         setSidebarLeast();
@@ -138,7 +141,7 @@ public class SingleGameSession extends GameSession {
         if ( parent.getReversiLabConfig().isBroadcastSessionStartEnd() ) {
             sendBroadcastInfoMessage(Messages.get("BroadcastSingleSessionStart",
                     new String[]{"%owner", "%cpu", "%difficulty"},
-                    new String[]{ownerName, Messages.get("NameOfCPU"), difficulty.name()}));
+                    new String[]{ownerName, Messages.get("NameOfCPU"), getDifficultyName()}));
         }
 
         // そのまま、IN_GAMEフェーズに進む
@@ -164,6 +167,9 @@ public class SingleGameSession extends GameSession {
 
         this.turn = (piece == Piece.BLACK) ? GameSessionTurn.BLACK_PRE : GameSessionTurn.WHITE_PRE;
 
+        // プレイヤーの手番の間の先読みは、手番が変わったら止める
+        cancelPonder();
+
         boolean isPlayerTurn =
                 (piece == Piece.BLACK && isOwnerBlack)  || (piece == Piece.WHITE && !isOwnerBlack);
 
@@ -184,13 +190,18 @@ public class SingleGameSession extends GameSession {
 
         this.turn = (piece == Piece.BLACK) ? GameSessionTurn.BLACK : GameSessionTurn.WHITE;
 
+        // プレイヤーが考えている間に、CPUが応手を先読みしておく
+        if ( isPlayerTurn && ai instanceof PonderingAI && parent.getReversiLabConfig().isCpuPondering() ) {
+            ponderTask = parent.getAIScheduler().submitPonder((PonderingAI)ai, getBoard(), piece);
+        }
+
         // CPUが石を置く
         if ( !isPlayerTurn ) {
 
-            final long startTime = System.currentTimeMillis();
+            long startTime = System.currentTimeMillis();
 
             // CPUが長考したときに、メッセージを表示するためのタスク
-            final BukkitRunnable msgTask = new BukkitRunnable() {
+            cpuMessageTask = new BukkitRunnable() {
                 public void run() {
                     Player player = getOwnerPlayer();
                     if ( player != null ) {
@@ -199,33 +210,72 @@ public class SingleGameSession extends GameSession {
                     }
                 }
             };
-            msgTask.runTaskLater(parent, 40);
+            cpuMessageTask.runTaskLater(parent, 40);
 
-            // CPUが長考する可能性があるので、非同期処理スレッドで実行する
-            new BukkitRunnable() {
-                public void run() {
+            // CPUが長考する可能性があるので、AIスケジューラのワーカースレッドで実行する
+            requestCPUMove(piece, startTime);
+        }
+    }
 
-                    // 次に置く座標を取得
-                    final int[] next = ai.getNext(getBoard(), piece);
+    /**
+     * AIスケジューラに、CPUの次の手の思考を依頼する。
+     * 順番待ちがいっぱいで受け付けられなかった場合は、1秒後に依頼し直す。
+     * @param piece CPUの石
+     * @param startTime CPUの手番が始まった時刻
+     */
+    private void requestCPUMove(final Piece piece, final long startTime) {
 
-                    msgTask.cancel();
-                    long cpuTimeMillis = System.currentTimeMillis() - startTime;
+        final BukkitRunnable msgTask = cpuMessageTask;
 
-                    // 同期処理に戻す。CPUに1秒かかっていない場合は、演出のために1秒待たせる。
-                    int ticks = 20 - (int)(cpuTimeMillis / 50);
-                    if ( ticks <= 0 ) ticks = 1;
+        // 順番待ちの時間も含めて、CPUの手番の開始から数えた期限までに打たせる
+        long timeMillis = parent.getReversiLabConfig().getMoveTimeMillis(difficulty);
+        long deadline = (timeMillis > 0) ? startTime + timeMillis : 0;
 
-                    if ( DEBUG ) {
-                        System.out.println("DEBUG : cputime = " + cpuTimeMillis + ", ticks = " + ticks);
-                    }
+        cpuTask = parent.getAIScheduler().submit(ai, getBoard(), piece, deadline, new AITaskCallback() {
+            public void onComplete(final int[] next) {
+
+                msgTask.cancel();
+                long cpuTimeMillis = System.currentTimeMillis() - startTime;
 
-                    new BukkitRunnable() {
-                        public void run() {
-                            tryPut(next[0], next[1], piece);
+                // 同期処理に戻す。CPUに1秒かかっていない場合は、演出のために1秒待たせる。
+                int ticks = 20 - (int)(cpuTimeMillis / 50);
+                if ( ticks <= 0 ) ticks = 1;
+
+                if ( DEBUG ) {
+                    System.out.println("DEBUG : cputime = " + cpuTimeMillis + ", ticks = " + ticks);
+                }
+
+                new BukkitRunnable() {
+                    public void run() {
+                        // 待っている間にセッションが終了していたら、何もしない
+                        if ( isEnd() ) {
+                            return;
                         }
-                    }.runTaskLater(parent, ticks);
+                        cpuTask = null;
+                        tryPut(next[0], next[1], piece);
+                    }
+                }.runTaskLater(parent, ticks);
+            }
+        });
+
+        if ( cpuTask == null ) {
+            new BukkitRunnable() {
+                public void run() {
+                    if ( !isEnd() ) {
+                        requestCPUMove(piece, startTime);
+                    }
                 }
-            }.runTaskAsynchronously(parent);
+            }.runTaskLater(parent, 20);
+        }
+    }
+
+    /**
+     * CPUの先読みを中断させる
+     */
+    private void cancelPonder() {
+        if ( ponderTask != null ) {
+            parent.getAIScheduler().cancel(ponderTask);
+            ponderTask = null;
         }
     }
 
@@ -354,11 +404,11 @@ public class SingleGameSession extends GameSession {
             if ( winner != null ) {
                 msg = Messages.get("BroadcastSingleSessionEnd",
                         new String[]{"%owner", "%cpu", "%difficulty", "%black", "%white", "%winner"},
-                        new String[]{ownerName, cpuName, difficulty.toString(), "" + black, "" + white, winner});
+                        new String[]{ownerName, cpuName, getDifficultyName(), "" + black, "" + white, winner});
             } else {
                 msg = Messages.get("BroadcastSingleSessionEndDraw",
                         new String[]{"%owner", "%cpu", "%difficulty", "%black", "%white"},
-                        new String[]{ownerName, cpuName, difficulty.toString(), "" + black, "" + white});
+                        new String[]{ownerName, cpuName, getDifficultyName(), "" + black, "" + white});
             }
 
             sendBroadcastInfoMessage(msg);
@@ -466,7 +516,7 @@ public class SingleGameSession extends GameSession {
         if ( parent.getReversiLabConfig().isBroadcastSessionStartEnd() ) {
             msg = Messages.get("BroadcastSingleSessionEndResign",
                     new String[]{"%owner", "%cpu", "%difficulty", "%black", "%white", "%winner", "%loser"},
-                    new String[]{ownerName, cpuName, difficulty.toString(), "" + black, "" + white, cpuName, ownerName});
+                    new String[]{ownerName, cpuName, getDifficultyName(), "" + black, "" + white, cpuName, ownerName});
 
             sendBroadcastInfoMessage(msg);
         }
@@ -495,6 +545,17 @@ public class SingleGameSession extends GameSession {
         // このゲームセッションを登録から削除する
         parent.getGameSessionManager().removeSession(this);
 
+        // CPUが思考中なら、中断させる
+        if ( cpuTask != null ) {
+            parent.getAIScheduler().cancel(cpuTask);
+            cpuTask = null;
+        }
+        cancelPonder();
+        if ( cpuMessageTask != null ) {
+            cpuMessageTask.cancel();
+            cpuMessageTask = null;
+        }
+
         Player owner = getOwnerPlayer();
         if ( owner != null ) {
 
@@ -524,8 +585,8 @@ public class SingleGameSession extends GameSession {
         // 全ての観客を退出させる
         leaveAllSpectators();
 
-        // クリーンアップ
-        getField().cleanup(false);
+        // ゲームフィールドを返却する
+        releaseField();
     }
 
     /**
@@ -603,6 +664,22 @@ public class SingleGameSession extends GameSession {
         return ownerName;
     }
 
+    /**
+     * このセッションのCPUのAIプロファイルを取得する
+     * @return AIプロファイル
+     */
+    public AIProfile getAIProfile() {
+        return profile;
+    }
+
+    /**
+     * メッセージに表示する難易度名（AIプロファイル名の大文字）を取得する
+     * @return 難易度名
+     */
+    private String getDifficultyName() {
+        return profile.getName().toUpperCase();
+    }
+
     /**
      * このセッションの文字列表現
      * @see java.lang.Object#toString()
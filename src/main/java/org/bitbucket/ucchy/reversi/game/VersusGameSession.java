@@ -610,8 +610,8 @@ public class VersusGameSession extends GameSession {
         // 全ての観客を退出させる
         leaveAllSpectators();
 
-        // クリーンアップ
-        getField().cleanup(false);
+        // ゲームフィールドを返却する
+        releaseField();
     }
 
     /**
@@ -0,0 +1,94 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.game;
+
+import java.util.Random;
+
+/**
+ * 盤面と手番から、64bitのハッシュ値（Zobristハッシュ）を求めるためのユーティリティ。
+ * 乱数の種を固定しているので、同じ局面は常に同じハッシュ値になる。<br/>
+ * GameBoard は、石の配置のハッシュ値を着手のたびに差分で更新して保持しているので、
+ * 盤面のハッシュ値は GameBoard#getHash で O(1) で得られる。
+ * @author ucchy
+ */
+public final class ZobristHash {
+
+    private static final long SEED = 0x5265766572736930L;
+
+    /** 黒石のキー */
+    private static final long[] BLACK_KEYS = new long[64];
+
+    /** 白石のキー */
+    private static final long[] WHITE_KEYS = new long[64];
+
+    /** 石を裏返したときのキー（黒石のキーと白石のキーの排他的論理和） */
+    private static final long[] FLIP_KEYS = new long[64];
+
+    /** 白の手番のときに加えるキー */
+    public static final long SIDE_KEY;
+
+    static {
+        Random random = new Random(SEED);
+        for ( int square=0; square<64; square++ ) {
+            BLACK_KEYS[square] = random.nextLong();
+            WHITE_KEYS[square] = random.nextLong();
+            FLIP_KEYS[square] = BLACK_KEYS[square] ^ WHITE_KEYS[square];
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    /**
+     * コンストラクタ（インスタンス化不可）
+     */
+    private ZobristHash() {
+    }
+
+    /**
+     * 盤面と手番から、ハッシュ値を返す
+     * @param board 盤面
+     * @param piece 手番
+     * @return ハッシュ値
+     */
+    public static long getHash(GameBoard board, Piece piece) {
+        return board.getHash(piece);
+    }
+
+    /**
+     * 石のマスクと手番から、ハッシュ値を計算して返す
+     * @param black 黒石のマスク
+     * @param white 白石のマスク
+     * @param piece 手番
+     * @return ハッシュ値
+     */
+    public static long getHash(long black, long white, Piece piece) {
+        long hash = (piece == Piece.WHITE) ? SIDE_KEY : 0;
+        while ( black != 0 ) {
+            hash ^= BLACK_KEYS[Long.numberOfTrailingZeros(black)];
+            black &= black - 1;
+        }
+        while ( white != 0 ) {
+            hash ^= WHITE_KEYS[Long.numberOfTrailingZeros(white)];
+            white &= white - 1;
+        }
+        return hash;
+    }
+
+    /**
+     * 着手による、石の配置のハッシュ値の変化分を返す。手番の交代は含まない。
+     * @param square 置いたマス目のビット位置
+     * @param flips 裏返された石のマスク
+     * @param piece 置いた石
+     * @return ハッシュ値の変化分
+     */
+    public static long getPlacementDelta(int square, long flips, Piece piece) {
+        long delta = (piece == Piece.BLACK) ? BLACK_KEYS[square] : WHITE_KEYS[square];
+        while ( flips != 0 ) {
+            delta ^= FLIP_KEYS[Long.numberOfTrailingZeros(flips)];
+            flips &= flips - 1;
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.bitbucket.ucchy.reversi.ai.MoveOrderer;
+import org.bitbucket.ucchy.reversi.ai.PatternEvaluator;
+import org.bitbucket.ucchy.reversi.ai.SearchEngine;
+import org.bitbucket.ucchy.reversi.ai.TranspositionTable;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 手の並べ替えの手法ごとに、同じ局面群を同じ深さで探索して、
+ * ノード数とベータカットの統計を比べるツール。<br/>
+ * 局面は、初期局面から乱数（種は固定）で打ち進めて作るので、毎回同じになる。<br/>
+ * 使い方： java -cp ReversiLab.jar org.bitbucket.ucchy.reversi.tool.MoveOrderingStats [局面数] [深さ]
+ * @author ucchy
+ */
+public class MoveOrderingStats {
+
+    private static final int DEFAULT_POSITIONS = 30;
+    private static final int DEFAULT_DEPTH = 8;
+
+    /** 局面を作るときに打ち進める手数 */
+    private static final int[] STAGES = { 16, 24, 32, 40 };
+
+    /** 比べる手法 */
+    private static final int[] FEATURES = {
+        MoveOrderer.NONE,
+        MoveOrderer.KILLERS,
+        MoveOrderer.HISTORY,
+        MoveOrderer.KILLERS | MoveOrderer.HISTORY,
+        MoveOrderer.MOBILITY,
+        MoveOrderer.ALL,
+    };
+
+    /**
+     * 乱数で打ち進めた局面を作る
+     * @param count 局面数
+     * @return 局面のリスト、要素は { 盤面, 手番 }
+     */
+    private static List<Object[]> createPositions(int count) {
+
+        List<Object[]> positions = new ArrayList<Object[]>();
+        Random random = new Random(0);
+        while ( positions.size() < count ) {
+            int plies = STAGES[positions.size() % STAGES.length];
+            GameBoard board = new GameBoard();
+            Piece piece = Piece.BLACK;
+            for ( int ply=0; ply<plies && board.canPutAll(); ply++ ) {
+                long moves = board.legalMoves(piece);
+                if ( moves != 0 ) {
+                    int skip = random.nextInt(Long.bitCount(moves));
+                    for ( int i=0; i<skip; i++ ) {
+                        moves &= moves - 1;
+                    }
+                    board.applyMove(Long.numberOfTrailingZeros(moves), piece);
+                }
+                piece = piece.getReverse();
+            }
+            if ( board.legalMoves(piece) != 0 ) {
+                positions.add(new Object[] { board, piece });
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * 手法の名前を返す
+     * @param features 手法
+     * @return 名前
+     */
+    private static String getName(int features) {
+        if ( features == MoveOrderer.NONE ) {
+            return "none";
+        }
+        StringBuilder name = new StringBuilder();
+        if ( (features & MoveOrderer.KILLERS) != 0 ) {
+            name.append("+killers");
+        }
+        if ( (features & MoveOrderer.HISTORY) != 0 ) {
+            name.append("+history");
+        }
+        if ( (features & MoveOrderer.MOBILITY) != 0 ) {
+            name.append("+mobility");
+        }
+        return name.substring(1);
+    }
+
+    /**
+     * エントリポイント
+     * @param args [局面数] [深さ]
+     */
+    public static void main(String[] args) {
+
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_POSITIONS;
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_DEPTH;
+        List<Object[]> positions = createPositions(count);
+
+        System.out.println(String.format(Locale.ROOT, "%d positions, depth %d", positions.size(), depth));
+        System.out.println(String.format(Locale.ROOT, "%-26s %14s %8s %12s %10s %9s",
+                "ordering", "nodes", "ratio", "cutoffs", "first-cut", "msec"));
+
+        long baseNodes = 0;
+        for ( int features : FEATURES ) {
+
+            long nodes = 0;
+            long cutoffs = 0;
+            long firstMoveCutoffs = 0;
+            long start = System.nanoTime();
+
+            for ( Object[] position : positions ) {
+                // 置換表の内容が結果に影響しないように、局面ごとに新しいエンジンで探索する
+                SearchEngine engine = new SearchEngine(new PatternEvaluator(), 0,
+                        new TranspositionTable(TranspositionTable.DEFAULT_SIZE));
+                engine.setMoveOrdering(features);
+                engine.search((GameBoard)position[0], (Piece)position[1], depth);
+                nodes += engine.getNodeCount();
+                cutoffs += engine.getCutoffCount();
+                firstMoveCutoffs += engine.getFirstMoveCutoffCount();
+            }
+
+            long millis = (System.nanoTime() - start) / 1000000;
+            if ( features == MoveOrderer.NONE ) {
+                baseNodes = nodes;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-26s %14d %7.1f%% %12d %9.1f%% %9d",
+                    getName(features), nodes, nodes * 100.0 / Math.max(1, baseNodes), cutoffs,
+                    firstMoveCutoffs * 100.0 / Math.max(1, cutoffs), millis));
+        }
+    }
+}
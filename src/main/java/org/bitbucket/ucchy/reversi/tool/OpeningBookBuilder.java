@@ -0,0 +1,166 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.bitbucket.ucchy.reversi.ai.OpeningBook;
+import org.bitbucket.ucchy.reversi.ai.PatternEvaluator;
+import org.bitbucket.ucchy.reversi.ai.SearchEngine;
+import org.bitbucket.ucchy.reversi.ai.TranspositionTable;
+import org.bitbucket.ucchy.reversi.game.BoardSymmetry;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 自己対戦で定石ブックを生成する、オフライン用のツール。<br/>
+ * 序盤の指定手数までを自己対戦し、現れた局面ごとに探索した最善手を記録する。
+ * 色々な局面を集めるため、一定の確率で最善手の代わりにランダムな手を打って進める。<br/>
+ * 使い方： java -cp ReversiLab.jar org.bitbucket.ucchy.reversi.tool.OpeningBookBuilder
+ * &lt;出力ファイル&gt; [対局数] [手数] [探索深度] [ランダムな手を打つ確率]
+ * @author ucchy
+ */
+public class OpeningBookBuilder {
+
+    private static final int DEFAULT_GAMES = 1000;
+    private static final int DEFAULT_PLIES = 12;
+    private static final int DEFAULT_DEPTH = 8;
+    private static final double DEFAULT_RANDOMNESS = 0.25;
+
+    private int plies;
+    private int depth;
+    private double randomness;
+
+    private SearchEngine engine;
+    private Random random = new Random(0);
+    private TreeMap<Long, int[]> entries = new TreeMap<Long, int[]>();
+
+    /**
+     * コンストラクタ
+     * @param plies 記録する手数
+     * @param depth 探索深度
+     * @param randomness ランダムな手を打つ確率
+     */
+    public OpeningBookBuilder(int plies, int depth, double randomness) {
+        this.plies = plies;
+        this.depth = depth;
+        this.randomness = randomness;
+        this.engine = new SearchEngine(new PatternEvaluator(), 0,
+                new TranspositionTable(TranspositionTable.DEFAULT_SIZE * 4));
+    }
+
+    /**
+     * 1局分の自己対戦を行い、現れた局面を記録する
+     */
+    public void playGame() {
+
+        GameBoard board = new GameBoard();
+        Piece piece = Piece.BLACK;
+
+        for ( int ply=0; ply<plies; ply++ ) {
+
+            long moves = board.legalMoves(piece);
+            if ( moves == 0 ) {
+                if ( board.legalMoves(piece.getReverse()) == 0 ) {
+                    return;
+                }
+                piece = piece.getReverse();
+                continue;
+            }
+
+            long black = board.getMaskOf(Piece.BLACK);
+            long white = board.getMaskOf(Piece.WHITE);
+            int symmetry = BoardSymmetry.getCanonicalSymmetry(black, white);
+            long key = BoardSymmetry.getKey(black, white, piece, symmetry);
+
+            int best;
+            int[] entry = entries.get(key);
+            if ( entry != null ) {
+                best = BoardSymmetry.transformSquare(entry[0], BoardSymmetry.inverse(symmetry));
+            } else {
+                best = engine.search(board, piece, depth);
+                entries.put(key, new int[] {BoardSymmetry.transformSquare(best, symmetry), depth});
+            }
+
+            int square = best;
+            if ( random.nextDouble() < randomness ) {
+                int skip = random.nextInt(Long.bitCount(moves));
+                for ( int i=0; i<skip; i++ ) {
+                    moves &= moves - 1;
+                }
+                square = Long.numberOfTrailingZeros(moves);
+            }
+
+            board.applyMove(square, piece);
+            piece = piece.getReverse();
+        }
+    }
+
+    /**
+     * 記録した局面を、定石ブックのファイルに書き出す
+     * @param file ファイル
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void write(File file) throws IOException {
+
+        int count = entries.size();
+        long[] keys = new long[count];
+        int[] moves = new int[count];
+        int[] depths = new int[count];
+        int index = 0;
+        for ( Map.Entry<Long, int[]> entry : entries.entrySet() ) {
+            keys[index] = entry.getKey();
+            moves[index] = entry.getValue()[0];
+            depths[index] = entry.getValue()[1];
+            index++;
+        }
+        OpeningBook.write(file, keys, moves, depths, count);
+    }
+
+    /**
+     * 記録した局面の数を返す
+     * @return 局面の数
+     */
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * エントリポイント
+     * @param args &lt;出力ファイル&gt; [対局数] [手数] [探索深度] [ランダムな手を打つ確率]
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void main(String[] args) throws IOException {
+
+        if ( args.length < 1 ) {
+            System.out.println("Usage: OpeningBookBuilder <output> [games] [plies] [depth] [randomness]");
+            return;
+        }
+
+        File file = new File(args[0]);
+        int games = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        int plies = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+        int depth = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_DEPTH;
+        double randomness = (args.length > 4) ? Double.parseDouble(args[4]) : DEFAULT_RANDOMNESS;
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, depth, randomness);
+        long start = System.currentTimeMillis();
+        for ( int i=1; i<=games; i++ ) {
+            builder.playGame();
+            if ( i % 100 == 0 || i == games ) {
+                System.out.println(String.format("%d / %d games, %d positions, %d sec",
+                        i, games, builder.getEntryCount(), (System.currentTimeMillis() - start) / 1000));
+            }
+        }
+
+        builder.write(file);
+        System.out.println("Wrote " + builder.getEntryCount() + " positions to " + file.getPath());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.tool;
+
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * 初期局面から指定した深さまでの末端の局面数を数える（perft）ツール。<br/>
+ * パスも1手として数え、両者とも置けなくなった局面は、その時点で末端として1つ数える。
+ * 既知の値と比べて着手生成が正しいかを確認でき、1秒あたりの局面数で速度も測れる。<br/>
+ * 着手生成は、ビットボードの legalMoves / applyMove / undoMove を使う方法（fast）と、
+ * canPutAt / clone / putAt（findPath）を使う方法（path）の2通りを選べる。<br/>
+ * 使い方： java -cp ReversiLab.jar org.bitbucket.ucchy.reversi.tool.Perft [深さ] [fast|path]
+ * @author ucchy
+ */
+public class Perft {
+
+    private static final int DEFAULT_DEPTH = 9;
+
+    /** 初期局面からの、深さごとの末端の局面数の既知の値 */
+    private static final long[] KNOWN = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L,
+        24571284L, 212258800L, 1939886636L, 18429641748L, 184042084512L,
+    };
+
+    /**
+     * ビットボードの着手・取り消しで、末端の局面数を数える
+     * @param board 盤面（呼び出し後は元に戻る）
+     * @param piece 手番
+     * @param depth 残りの深さ
+     * @param passed 直前の手番がパスだったかどうか
+     * @return 末端の局面数
+     */
+    public static long perft(GameBoard board, Piece piece, int depth, boolean passed) {
+
+        if ( depth == 0 ) {
+            return 1;
+        }
+
+        long moves = board.legalMoves(piece);
+        if ( moves == 0 ) {
+            if ( passed ) {
+                return 1;
+            }
+            return perft(board, piece.getReverse(), depth - 1, true);
+        }
+
+        if ( depth == 1 ) {
+            return Long.bitCount(moves);
+        }
+
+        long total = 0;
+        while ( moves != 0 ) {
+            int square = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            long flips = board.applyMove(square, piece);
+            total += perft(board, piece.getReverse(), depth - 1, false);
+            board.undoMove(square, piece, flips);
+        }
+        return total;
+    }
+
+    /**
+     * canPutAt と、盤面のコピーへの putAt で、末端の局面数を数える
+     * @param board 盤面（変更されない）
+     * @param piece 手番
+     * @param depth 残りの深さ
+     * @param passed 直前の手番がパスだったかどうか
+     * @return 末端の局面数
+     */
+    public static long perftByPath(GameBoard board, Piece piece, int depth, boolean passed) {
+
+        if ( depth == 0 ) {
+            return 1;
+        }
+
+        if ( !board.canPut(piece) ) {
+            if ( passed ) {
+                return 1;
+            }
+            return perftByPath(board, piece.getReverse(), depth - 1, true);
+        }
+
+        long total = 0;
+        for ( int y=0; y<8; y++ ) {
+            for ( int x=0; x<8; x++ ) {
+                if ( !board.canPutAt(x, y, piece) ) continue;
+                GameBoard next = board.clone();
+                next.putAt(x, y, piece);
+                total += perftByPath(next, piece.getReverse(), depth - 1, false);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * エントリポイント
+     * @param args [深さ] [fast|path]
+     */
+    public static void main(String[] args) {
+
+        int maxDepth = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        boolean byPath = (args.length > 1) && args[1].equalsIgnoreCase("path");
+
+        System.out.println(String.format("%5s%16s%12s%16s  %s", "depth", "nodes", "sec", "nodes/sec", "check"));
+
+        boolean ok = true;
+        for ( int depth=1; depth<=maxDepth; depth++ ) {
+            GameBoard board = new GameBoard();
+            long start = System.nanoTime();
+            long nodes = byPath ? perftByPath(board, Piece.BLACK, depth, false)
+                    : perft(board, Piece.BLACK, depth, false);
+            long nanos = Math.max(1, System.nanoTime() - start);
+
+            String check = "-";
+            if ( depth < KNOWN.length ) {
+                check = (nodes == KNOWN[depth]) ? "OK" : "NG (expected " + KNOWN[depth] + ")";
+                ok &= nodes == KNOWN[depth];
+            }
+            System.out.println(String.format("%5d%16d%12.3f%16d  %s",
+                    depth, nodes, nanos / 1000000000.0, (long)(nodes * 1000000000.0 / nanos), check));
+        }
+
+        if ( !ok ) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2016
+ */
+package org.bitbucket.ucchy.reversi.tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bitbucket.ucchy.reversi.ai.AIProfile;
+import org.bitbucket.ucchy.reversi.ai.ReversiAI;
+import org.bitbucket.ucchy.reversi.ai.ReversiAISearch;
+import org.bitbucket.ucchy.reversi.game.GameBoard;
+import org.bitbucket.ucchy.reversi.game.Piece;
+
+/**
+ * サーバーなしで、AI同士の総当たり戦を行うツール。<br/>
+ * GameBoard と ReversiAI だけを使って、全ての組み合わせの対局を複数のスレッドで並列に行い、
+ * 勝率、1秒あたりのノード数（数えられるAIのみ）、1手あたりの思考時間のパーセンタイルを表示して、
+ * 1局ごとの結果をCSVファイルに書き出す。<br/>
+ * 各組み合わせでは、同じ序盤（ランダムな数手）を先手・後手を入れ替えて2局ずつ打つ。<br/>
+ * 参加者は、ゲーム内と同じ AIProfile で思考する。プロファイルの書式は AIProfile#parse を参照。
+ * 定石ブックは読み込まない。<br/>
+ * 使い方： java -cp ReversiLab.jar org.bitbucket.ucchy.reversi.tool.Tournament
+ * &lt;出力CSVファイル&gt; [組み合わせごとの対局数] [スレッド数] [参加者(easy,normal,hard,expert:depth=12:...)]
+ * @author ucchy
+ */
+public class Tournament {
+
+    private static final int DEFAULT_GAMES = 100;
+
+    /** 序盤にランダムに打つ手数 */
+    private static final int OPENING_PLIES = 4;
+
+    private List<AIProfile> participants;
+    private int games;
+
+    /**
+     * コンストラクタ
+     * @param participants 参加するAIのプロファイル
+     * @param games 組み合わせごとの対局数
+     */
+    public Tournament(List<AIProfile> participants, int games) {
+        this.participants = participants;
+        this.games = games;
+    }
+
+    /**
+     * 全ての対局を並列に実行する
+     * @param threads スレッド数
+     * @return 対局結果
+     * @throws InterruptedException 割り込まれた場合
+     * @throws ExecutionException 対局中に例外が発生した場合
+     */
+    public List<GameResult> run(int threads) throws InterruptedException, ExecutionException {
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<GameResult>> futures = new ArrayList<Future<GameResult>>();
+            for ( int i=0; i<participants.size(); i++ ) {
+                for ( int j=i+1; j<participants.size(); j++ ) {
+                    for ( int game=0; game<games; game++ ) {
+                        final AIProfile black = (game % 2 == 0) ? participants.get(i) : participants.get(j);
+                        final AIProfile white = (game % 2 == 0) ? participants.get(j) : participants.get(i);
+                        final long seed = game / 2;
+                        futures.add(executor.submit(new Callable<GameResult>() {
+                            public GameResult call() {
+                                return play(black, white, seed);
+                            }
+                        }));
+                    }
+                }
+            }
+
+            ArrayList<GameResult> results = new ArrayList<GameResult>();
+            for ( Future<GameResult> future : futures ) {
+                results.add(future.get());
+            }
+            return results;
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 1局を終局まで打つ
+     * @param blackProfile 黒のAI
+     * @param whiteProfile 白のAI
+     * @param seed 序盤の手を決める乱数の種
+     * @return 対局結果
+     */
+    private GameResult play(AIProfile blackProfile, AIProfile whiteProfile, long seed) {
+
+        GameResult result = new GameResult(blackProfile.getName(), whiteProfile.getName());
+        ReversiAI blackAI = blackProfile.createAI(null, null);
+        ReversiAI whiteAI = whiteProfile.createAI(null, null);
+        Random random = new Random(seed);
+
+        GameBoard board = new GameBoard();
+        Piece piece = Piece.BLACK;
+        int ply = 0;
+
+        while ( board.canPutAll() ) {
+
+            long moves = board.legalMoves(piece);
+            if ( moves == 0 ) {
+                piece = piece.getReverse();
+                continue;
+            }
+
+            int x, y;
+            if ( ply < OPENING_PLIES ) {
+                int skip = random.nextInt(Long.bitCount(moves));
+                for ( int i=0; i<skip; i++ ) {
+                    moves &= moves - 1;
+                }
+                int square = Long.numberOfTrailingZeros(moves);
+                x = square % 8;
+                y = square / 8;
+            } else {
+                ReversiAI ai = (piece == Piece.BLACK) ? blackAI : whiteAI;
+                long start = System.nanoTime();
+                int[] next = ai.getNext(board, piece);
+                long nanos = System.nanoTime() - start;
+                long nodes = (ai instanceof ReversiAISearch) ? ((ReversiAISearch)ai).getNodeCount() : -1;
+                result.addMove(piece, nanos, nodes);
+                x = next[0];
+                y = next[1];
+            }
+
+            if ( !board.canPutAt(x, y, piece) ) {
+                throw new IllegalStateException(String.format("%s played an illegal move (%d,%d)",
+                        (piece == Piece.BLACK) ? blackProfile.getName() : whiteProfile.getName(), x, y));
+            }
+            board.putAt(x, y, piece);
+            piece = piece.getReverse();
+            ply++;
+        }
+
+        result.blackDiscs = board.getBlackCount();
+        result.whiteDiscs = board.getWhiteCount();
+        return result;
+    }
+
+    /**
+     * 集計結果を表示する
+     * @param results 対局結果
+     */
+    public void printSummary(List<GameResult> results) {
+
+        System.out.println("=== Win rates (row vs column) ===");
+        for ( AIProfile profileA : participants ) {
+            String a = profileA.getName();
+            StringBuilder line = new StringBuilder(String.format("%-10s", a));
+            for ( AIProfile profileB : participants ) {
+                String b = profileB.getName();
+                if ( a.equals(b) ) {
+                    line.append(String.format("%10s", "-"));
+                    continue;
+                }
+                int played = 0;
+                double points = 0;
+                for ( GameResult result : results ) {
+                    if ( result.black.equals(a) && result.white.equals(b) ) {
+                        played++;
+                        points += result.getPoints(Piece.BLACK);
+                    } else if ( result.black.equals(b) && result.white.equals(a) ) {
+                        played++;
+                        points += result.getPoints(Piece.WHITE);
+                    }
+                }
+                line.append(String.format("%9.1f%%", (played > 0) ? points * 100 / played : 0.0));
+            }
+            System.out.println(line);
+        }
+
+        System.out.println("=== Move times (ms) and search speed ===");
+        System.out.println(String.format("%-10s%8s%10s%10s%10s%10s%14s",
+                "AI", "moves", "p50", "p90", "p99", "max", "nodes/sec"));
+        for ( AIProfile profile : participants ) {
+            String ai = profile.getName();
+            ArrayList<Long> times = new ArrayList<Long>();
+            long totalNanos = 0;
+            long totalNodes = 0;
+            boolean countsNodes = true;
+            for ( GameResult result : results ) {
+                for ( Piece piece : new Piece[] {Piece.BLACK, Piece.WHITE} ) {
+                    if ( !result.getProfileName(piece).equals(ai) ) {
+                        continue;
+                    }
+                    for ( long[] move : result.getMoves(piece) ) {
+                        times.add(move[0]);
+                        totalNanos += move[0];
+                        if ( move[1] < 0 ) {
+                            countsNodes = false;
+                        } else {
+                            totalNodes += move[1];
+                        }
+                    }
+                }
+            }
+            long[] sorted = new long[times.size()];
+            for ( int i=0; i<sorted.length; i++ ) {
+                sorted[i] = times.get(i);
+            }
+            Arrays.sort(sorted);
+            String nps = (countsNodes && totalNanos > 0) ?
+                    String.valueOf(totalNodes * 1000000000L / totalNanos) : "-";
+            System.out.println(String.format("%-10s%8d%10.2f%10.2f%10.2f%10.2f%14s",
+                    ai, sorted.length, percentile(sorted, 50), percentile(sorted, 90),
+                    percentile(sorted, 99), percentile(sorted, 100), nps));
+        }
+    }
+
+    /**
+     * 1局ごとの結果をCSVファイルに書き出す
+     * @param results 対局結果
+     * @param file ファイル
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void writeCsv(List<GameResult> results, File file) throws IOException {
+
+        PrintWriter writer = new PrintWriter(file, "UTF-8");
+        try {
+            writer.println("game,black,white,black_discs,white_discs,winner,"
+                    + "black_moves,white_moves,black_millis,white_millis,black_nodes,white_nodes");
+            int index = 1;
+            for ( GameResult result : results ) {
+                writer.println(String.format(Locale.ROOT, "%d,%s,%s,%d,%d,%s,%d,%d,%.3f,%.3f,%d,%d",
+                        index++, result.black, result.white, result.blackDiscs, result.whiteDiscs,
+                        result.getWinner(),
+                        result.getMoves(Piece.BLACK).size(), result.getMoves(Piece.WHITE).size(),
+                        result.getTotalNanos(Piece.BLACK) / 1000000.0, result.getTotalNanos(Piece.WHITE) / 1000000.0,
+                        result.getTotalNodes(Piece.BLACK), result.getTotalNodes(Piece.WHITE)));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * ソート済みのナノ秒の配列から、パーセンタイルをミリ秒で返す
+     * @param sorted ソート済みの配列
+     * @param percent パーセント
+     * @return ミリ秒
+     */
+    private static double percentile(long[] sorted, int percent) {
+        if ( sorted.length == 0 ) {
+            return 0;
+        }
+        int index = (int)Math.ceil(sorted.length * percent / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000000.0;
+    }
+
+    /**
+     * エントリポイント
+     * @param args &lt;出力CSVファイル&gt; [組み合わせごとの対局数] [スレッド数] [参加者]
+     * @throws Exception 対局や書き込みに失敗した場合
+     */
+    public static void main(String[] args) throws Exception {
+
+        if ( args.length < 1 ) {
+            System.out.println("Usage: Tournament <output.csv> [games] [threads] [easy,normal,hard,name:key=value:...]");
+            return;
+        }
+
+        File file = new File(args[0]);
+        int games = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ArrayList<AIProfile> participants = new ArrayList<AIProfile>();
+        for ( String spec : ((args.length > 3) ? args[3] : "easy,normal,hard").split(",") ) {
+            participants.add(AIProfile.parse(spec));
+        }
+
+        Tournament tournament = new Tournament(participants, games);
+        long start = System.currentTimeMillis();
+        List<GameResult> results = tournament.run(Math.max(1, threads));
+        System.out.println(String.format("%d games in %.1f sec with %d threads",
+                results.size(), (System.currentTimeMillis() - start) / 1000.0, threads));
+
+        tournament.printSummary(results);
+        writeCsv(results, file);
+        System.out.println("Wrote results to " + file.getPath());
+    }
+
+    /**
+     * 1局分の結果
+     */
+    public static class GameResult {
+
+        private String black;
+        private String white;
+        private int blackDiscs;
+        private int whiteDiscs;
+
+        // 1手ごとの { 思考時間(ナノ秒), ノード数（数えられない場合は-1） }
+        private Map<Piece, List<long[]>> moves = new LinkedHashMap<Piece, List<long[]>>();
+
+        /**
+         * コンストラクタ
+         * @param black 黒のAIのプロファイル名
+         * @param white 白のAIのプロファイル名
+         */
+        private GameResult(String black, String white) {
+            this.black = black;
+            this.white = white;
+            moves.put(Piece.BLACK, new ArrayList<long[]>());
+            moves.put(Piece.WHITE, new ArrayList<long[]>());
+        }
+
+        private void addMove(Piece piece, long nanos, long nodes) {
+            moves.get(piece).add(new long[] {nanos, nodes});
+        }
+
+        public String getProfileName(Piece piece) {
+            return (piece == Piece.BLACK) ? black : white;
+        }
+
+        public List<long[]> getMoves(Piece piece) {
+            return moves.get(piece);
+        }
+
+        public long getTotalNanos(Piece piece) {
+            long total = 0;
+            for ( long[] move : moves.get(piece) ) {
+                total += move[0];
+            }
+            return total;
+        }
+
+        public long getTotalNodes(Piece piece) {
+            long total = 0;
+            for ( long[] move : moves.get(piece) ) {
+                if ( move[1] < 0 ) {
+                    return -1;
+                }
+                total += move[1];
+            }
+            return total;
+        }
+
+        /**
+         * 勝ち点（勝ち:1、引き分け:0.5、負け:0）を返す
+         * @param piece どちらから見た勝ち点か
+         * @return 勝ち点
+         */
+        public double getPoints(Piece piece) {
+            int diff = blackDiscs - whiteDiscs;
+            if ( diff == 0 ) {
+                return 0.5;
+            }
+            return ((diff > 0) == (piece == Piece.BLACK)) ? 1 : 0;
+        }
+
+        /**
+         * 勝者を返す
+         * @return 勝ったAIのプロファイル名、引き分けなら "DRAW"
+         */
+        public String getWinner() {
+            if ( blackDiscs == whiteDiscs ) {
+                return "DRAW";
+            }
+            return (blackDiscs > whiteDiscs) ? black : white;
+        }
+    }
+}